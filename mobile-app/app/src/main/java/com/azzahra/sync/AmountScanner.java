@@ -0,0 +1,120 @@
+package com.azzahra.sync;
+
+// Pencari nominal di teks notifikasi bank, satu kali jalan tanpa regex & tanpa String perantara.
+// Prioritas sama persis dengan versi regex lama (pertama yang ketemu di prioritas tertinggi menang):
+//   1. (rp|idr)\s*([0-9.,]+)          -> "Rp 150.000", "IDR1,250,000.00"
+//   2. [0-9]{1,3}([.,][0-9]{3})+      -> "150.000" di mana saja
+//   3. \b[0-9]{4,12}\b                -> "150000" berdiri sendiri
+// Prefix rp/idr dicocokkan case-insensitive ASCII, jadi teks tidak perlu di-lowercase dulu.
+public final class AmountScanner {
+
+    private AmountScanner() {}
+
+    // Return 0 kalau tidak ada nominal (atau angkanya melebihi long, sama seperti parseLong gagal)
+    public static long extract(CharSequence text) {
+        return extract(text, 0, text.length());
+    }
+
+    // Sama, tapi hanya melihat text[start, end) seolah-olah itu seluruh teks
+    public static long extract(CharSequence text, int start, int end) {
+        int n = end;
+        int groupedStart = -1, groupedEnd = -1;
+        int plainStart = -1, plainEnd = -1;
+
+        for (int i = start; i < n; i++) {
+            char c = text.charAt(i);
+
+            // 1. Prefix mata uang: langsung menang
+            int prefix = currencyPrefixLength(text, i, n);
+            if (prefix > 0) {
+                int s = i + prefix;
+                while (s < n && isRegexSpace(text.charAt(s))) s++;
+                int e = s;
+                while (e < n && isAmountChar(text.charAt(e))) e++;
+                if (e > s) return parseClean(text, s, e);
+                continue;
+            }
+            if (!isDigit(c)) continue;
+
+            // 2. Angka berkelompok ribuan. Regex bisa mulai di tengah deretan angka,
+            // tapi hanya kalau sisa deretan dari posisi ini paling banyak 3 digit.
+            if (groupedStart < 0) {
+                int r = i;
+                while (r < n && r - i < 4 && isDigit(text.charAt(r))) r++;
+                if (r - i <= 3) {
+                    int e = r;
+                    while (e + 3 < n && (text.charAt(e) == '.' || text.charAt(e) == ',')
+                            && isDigit(text.charAt(e + 1)) && isDigit(text.charAt(e + 2)) && isDigit(text.charAt(e + 3))) {
+                        e += 4;
+                    }
+                    if (e > r) {
+                        groupedStart = i;
+                        groupedEnd = e;
+                    }
+                }
+            }
+
+            // 3. Deretan 4-12 digit dengan batas kata di kedua sisi. Cukup dicek di awal deretan.
+            if (plainStart < 0 && (i == start || !isWordChar(text.charAt(i - 1)))) {
+                int e = i;
+                while (e < n && isDigit(text.charAt(e))) e++;
+                int len = e - i;
+                if (len >= 4 && len <= 12 && (e == n || !isWordChar(text.charAt(e)))) {
+                    plainStart = i;
+                    plainEnd = e;
+                }
+            }
+        }
+        if (groupedStart >= 0) return parseClean(text, groupedStart, groupedEnd);
+        if (plainStart >= 0) return parseClean(text, plainStart, plainEnd);
+        return 0;
+    }
+
+    // "rp" atau "idr" di posisi i (huruf besar/kecil), return panjangnya atau 0
+    private static int currencyPrefixLength(CharSequence t, int i, int n) {
+        char c = t.charAt(i);
+        if ((c == 'r' || c == 'R') && i + 1 < n) {
+            char p = t.charAt(i + 1);
+            return p == 'p' || p == 'P' ? 2 : 0;
+        }
+        if ((c == 'i' || c == 'I') && i + 2 < n) {
+            char d = t.charAt(i + 1), r = t.charAt(i + 2);
+            return (d == 'd' || d == 'D') && (r == 'r' || r == 'R') ? 3 : 0;
+        }
+        return 0;
+    }
+
+    // Buang ".00"/",00" di belakang (sen), lalu ambil digitnya saja
+    private static long parseClean(CharSequence t, int start, int end) {
+        if (end - start >= 3 && t.charAt(end - 2) == '0' && t.charAt(end - 1) == '0'
+                && (t.charAt(end - 3) == '.' || t.charAt(end - 3) == ',')) {
+            end -= 3;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = t.charAt(i);
+            if (!isDigit(c)) continue;
+            int d = c - '0';
+            if (value > (Long.MAX_VALUE - d) / 10) return 0;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAmountChar(char c) {
+        return isDigit(c) || c == '.' || c == ',';
+    }
+
+    // \s versi regex Android (ICU) juga menerima spasi Unicode, mis. NBSP (U+00A0) setelah "Rp"
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r') || Character.isSpaceChar(c);
+    }
+
+    private static boolean isWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+}
@@ -0,0 +1,160 @@
+package com.azzahra.sync;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Aturan baca notifikasi satu bank / e-wallet, dikompilasi dari JSON config:
+// {"name":"BCA","packages":["com.bca"],"incoming":["masuk"],"ignore":["keluar"],"balance":["saldo"]}
+// - incoming: minimal satu kata harus ada supaya dianggap uang masuk
+// - ignore  : kalau ada salah satu, notifikasi dilewati (uang keluar, OTP, promo)
+// - balance : awal kalimat saldo; nominal di kalimat itu tidak dihitung sebagai uang masuk
+// Semua kata dicocokkan terhadap teks yang sudah di-lowercase (sekali, oleh pemanggil).
+public final class BankParser {
+    public static final int RESULT_NOT_INCOMING = 0;
+    public static final int RESULT_IGNORED = 1;
+    public static final int RESULT_NO_AMOUNT = 2;
+    public static final int RESULT_AMOUNT = 3;
+
+    // Hasil parse terakhir di thread pemanggil (worker pipeline: satu thread)
+    public static final class Result {
+        public int status;
+        public long amount;
+    }
+
+    private final String name;
+    private final String[] packages;
+    private final String[] incoming;
+    private final String[] ignore;
+    private final String[] balance;
+
+    // Statistik per parser: dispatched = notifikasi yang sampai ke parser ini, hits = nominal ketemu
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong noAmount = new AtomicLong();
+
+    BankParser(String name, String[] packages, String[] incoming, String[] ignore, String[] balance) {
+        this.name = name;
+        this.packages = packages;
+        this.incoming = incoming;
+        this.ignore = ignore;
+        this.balance = balance;
+    }
+
+    static BankParser fromJson(JSONObject o) throws JSONException {
+        String name = o.getString("name");
+        String[] incoming = words(o.optJSONArray("incoming"));
+        if (incoming.length == 0) throw new JSONException("Parser " + name + " tanpa kata 'incoming'");
+        return new BankParser(name, strings(o.optJSONArray("packages"), false), incoming,
+                words(o.optJSONArray("ignore")), words(o.optJSONArray("balance")));
+    }
+
+    private static String[] words(JSONArray arr) throws JSONException {
+        return strings(arr, true);
+    }
+
+    // Nama paket case-sensitive, kata kunci di-lowercase
+    private static String[] strings(JSONArray arr, boolean lowercase) throws JSONException {
+        if (arr == null) return new String[0];
+        String[] out = new String[arr.length()];
+        for (int i = 0; i < out.length; i++) {
+            String s = arr.getString(i);
+            out[i] = lowercase ? s.toLowerCase(Locale.ROOT) : s;
+        }
+        return out;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    String[] getPackages() {
+        return packages;
+    }
+
+    // text = judul + isi asli, low = text yang sudah di-lowercase (panjang sama untuk teks bank)
+    public void parse(String text, String low, Result out) {
+        dispatched.incrementAndGet();
+        out.amount = 0;
+        if (indexOfAny(low, ignore, 0) >= 0) {
+            out.status = RESULT_IGNORED;
+            return;
+        }
+        if (indexOfAny(low, incoming, 0) < 0) {
+            out.status = RESULT_NOT_INCOMING;
+            return;
+        }
+        out.amount = scanOutsideBalance(text, low);
+        if (out.amount > 0) {
+            out.status = RESULT_AMOUNT;
+            hits.incrementAndGet();
+        } else {
+            out.status = RESULT_NO_AMOUNT;
+            noAmount.incrementAndGet();
+        }
+    }
+
+    // Cari nominal per potongan teks, melompati kalimat saldo ("Saldo Rp 2.000.000.")
+    private long scanOutsideBalance(String text, String low) {
+        // toLowerCase bisa mengubah panjang untuk huruf non-Latin tertentu; jangan pakai indeksnya
+        if (balance.length == 0 || low.length() != text.length()) return AmountScanner.extract(text);
+        int n = text.length();
+        int pos = 0;
+        while (pos < n) {
+            int b = indexOfAny(low, balance, pos);
+            long amount = AmountScanner.extract(text, pos, b < 0 ? n : b);
+            if (amount > 0 || b < 0) return amount;
+            pos = balanceEnd(text, b);
+        }
+        return 0;
+    }
+
+    // Akhir bagian saldo: setelah angka pertama sesudah kata saldo, atau di ganti baris / ';'
+    private static int balanceEnd(String text, int from) {
+        int n = text.length();
+        int i = from;
+        while (i < n && !isDigit(text.charAt(i))) {
+            char c = text.charAt(i++);
+            if (c == '\n' || c == ';' || c == '|') return i;
+        }
+        while (i < n) {
+            char c = text.charAt(i);
+            if (isDigit(c) || ((c == '.' || c == ',') && i + 1 < n && isDigit(text.charAt(i + 1)))) i++;
+            else break;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int indexOfAny(String low, String[] words, int from) {
+        int best = -1;
+        for (String w : words) {
+            int i = low.indexOf(w, from);
+            if (i >= 0 && (best < 0 || i < best)) best = i;
+        }
+        return best;
+    }
+
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    // Persen notifikasi yang menghasilkan nominal
+    public int getHitRatePercent() {
+        long d = dispatched.get();
+        return d == 0 ? 0 : (int) (hits.get() * 100 / d);
+    }
+
+    public String describe() {
+        return name + ": " + hits.get() + "/" + dispatched.get() + " (" + getHitRatePercent() + "%), tanpa nominal " + noAmount.get();
+    }
+}
@@ -0,0 +1,141 @@
+package com.azzahra.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Tabel parser notifikasi per paket aplikasi bank / e-wallet: lookup O(1) dari nama paket.
+// Aturan: bawaan aplikasi (DEFAULT_SOURCE) -> ditimpa config Firestore config/bankParsers (field
+// "rules", JSON string) yang disimpan di prefs supaya tetap berlaku saat offline / restart.
+// Paket yang tidak terdaftar memakai parser generik (perilaku lama: kata "masuk" + angka pertama).
+public final class BankParserRegistry {
+    private static final String TAG = "BankParsers";
+    private static final String PREF_RULES = "bank_parser_rules";
+    private static final String CONFIG_COLLECTION = "config";
+    private static final String CONFIG_DOC = "bankParsers";
+
+    public static final String DEFAULT_SOURCE = "{\"parsers\":["
+            + "{\"name\":\"BCA\",\"packages\":[\"com.bca\",\"com.bca.mybca.omni.android\"],"
+            + "\"incoming\":[\"masuk\",\"kredit\",\"diterima\"],\"ignore\":[\"keluar\",\"debit\",\"tarik tunai\"],\"balance\":[\"saldo\"]},"
+            + "{\"name\":\"Mandiri\",\"packages\":[\"id.bmri.livin\",\"com.bankmandiri.mandirionline\"],"
+            + "\"incoming\":[\"masuk\",\"diterima\",\"terima transfer\"],\"ignore\":[\"keluar\",\"debit\",\"tarik tunai\"],\"balance\":[\"saldo\"]},"
+            + "{\"name\":\"BRI\",\"packages\":[\"id.co.bri.brimo\"],"
+            + "\"incoming\":[\"masuk\",\"kredit\",\"diterima\"],\"ignore\":[\"keluar\",\"debit\",\"tarik tunai\"],\"balance\":[\"saldo\"]},"
+            + "{\"name\":\"BNI\",\"packages\":[\"src.com.bni\",\"id.bni.wondr\"],"
+            + "\"incoming\":[\"masuk\",\"kredit\",\"diterima\"],\"ignore\":[\"keluar\",\"debit\",\"tarik tunai\"],\"balance\":[\"saldo\"]},"
+            + "{\"name\":\"BSI\",\"packages\":[\"com.bsm.activity2\"],"
+            + "\"incoming\":[\"masuk\",\"kredit\",\"diterima\"],\"ignore\":[\"keluar\",\"debit\"],\"balance\":[\"saldo\"]},"
+            + "{\"name\":\"DANA\",\"packages\":[\"id.dana\"],"
+            + "\"incoming\":[\"diterima\",\"masuk\",\"bertambah\",\"menerima\"],\"ignore\":[\"pembayaran ke\",\"berhasil bayar\",\"promo\"],"
+            + "\"balance\":[\"sisa saldo\",\"saldo akhir\"]},"
+            + "{\"name\":\"OVO\",\"packages\":[\"ovo.id\"],"
+            + "\"incoming\":[\"diterima\",\"masuk\",\"menerima\"],\"ignore\":[\"pembayaran ke\",\"berhasil bayar\",\"promo\"],\"balance\":[\"sisa saldo\",\"saldo akhir\"]},"
+            + "{\"name\":\"ShopeePay\",\"packages\":[\"com.shopee.id\"],"
+            + "\"incoming\":[\"diterima\",\"masuk\",\"menerima\"],\"ignore\":[\"pembayaran ke\",\"berhasil bayar\",\"pembayaran pesanan\",\"voucher\",\"promo\",\"diskon\"],"
+            + "\"balance\":[\"sisa saldo\",\"saldo akhir\"]},"
+            + "{\"name\":\"GoPay\",\"packages\":[\"com.gojek.gopay\",\"com.gojek.app\"],"
+            + "\"incoming\":[\"diterima\",\"masuk\",\"menerima\"],\"ignore\":[\"pembayaran ke\",\"berhasil bayar\",\"promo\",\"voucher\"],"
+            + "\"balance\":[\"sisa saldo\",\"saldo akhir\"]}"
+            + "]}";
+
+    // Parser generik untuk paket yang tidak terdaftar
+    private static final BankParser GENERIC = new BankParser("Generik", new String[0],
+            new String[]{"masuk", "pemasukan"}, new String[0], new String[0]);
+
+    private static BankParserRegistry instance;
+
+    private final SharedPreferences prefs;
+    // Diganti utuh saat config berubah; pembaca tidak perlu lock
+    private volatile Map<String, BankParser> byPackage;
+    private volatile List<BankParser> parsers;
+    private ListenerRegistration configListener;
+
+    private BankParserRegistry(Context context) {
+        prefs = context.getSharedPreferences("AzzahraPrefs", Context.MODE_PRIVATE);
+        String cached = prefs.getString(PREF_RULES, null);
+        if (cached == null || !install(cached)) install(DEFAULT_SOURCE);
+    }
+
+    public static synchronized BankParserRegistry get(Context context) {
+        if (instance == null) instance = new BankParserRegistry(context.getApplicationContext());
+        return instance;
+    }
+
+    // O(1): satu lookup HashMap per notifikasi
+    public BankParser forPackage(String packageName) {
+        BankParser p = byPackage.get(packageName);
+        return p != null ? p : GENERIC;
+    }
+
+    // Pantau config/bankParsers; aturan baru langsung dipakai dan disimpan untuk start berikutnya
+    public synchronized void watchConfig(FirebaseFirestore db) {
+        if (configListener != null) return;
+        configListener = db.collection(CONFIG_COLLECTION).document(CONFIG_DOC).addSnapshotListener((snap, e) -> {
+            if (e != null || snap == null || !snap.exists()) return;
+            String rules = snap.getString("rules");
+            if (rules == null || rules.equals(prefs.getString(PREF_RULES, null))) return;
+            if (install(rules)) {
+                prefs.edit().putString(PREF_RULES, rules).apply();
+                Log.i(TAG, "Aturan parser diperbarui dari server: " + parsers.size() + " bank");
+            }
+        });
+    }
+
+    public synchronized void stopWatching() {
+        if (configListener != null) configListener.remove();
+        configListener = null;
+    }
+
+    // Hapus aturan dari server, kembali ke bawaan aplikasi
+    public void resetToDefault() {
+        prefs.edit().remove(PREF_RULES).apply();
+        install(DEFAULT_SOURCE);
+    }
+
+    public List<BankParser> getParsers() {
+        List<BankParser> all = new ArrayList<>(parsers);
+        all.add(GENERIC);
+        return Collections.unmodifiableList(all);
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (BankParser p : getParsers()) {
+            if (p.getDispatchedCount() == 0) continue;
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(p.describe());
+        }
+        return sb.length() == 0 ? "Belum ada notifikasi" : sb.toString();
+    }
+
+    // Kompilasi source; aturan lama tetap dipakai kalau source rusak
+    private boolean install(String source) {
+        try {
+            JSONArray arr = new JSONObject(source).optJSONArray("parsers");
+            if (arr == null) throw new JSONException("Field 'parsers' tidak ada");
+            Map<String, BankParser> map = new HashMap<>();
+            List<BankParser> list = new ArrayList<>(arr.length());
+            for (int i = 0; i < arr.length(); i++) {
+                BankParser p = BankParser.fromJson(arr.getJSONObject(i));
+                list.add(p);
+                for (String pkg : p.getPackages()) map.put(pkg, p);
+            }
+            parsers = list;
+            byPackage = map;
+            return true;
+        } catch (JSONException e) {
+            Log.e(TAG, "Aturan parser tidak valid: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,25 +1,73 @@
 package com.azzahra.sync;
 
-import android.annotation.SuppressLint;
-import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothDevice;
-import android.bluetooth.BluetoothSocket;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BluetoothPrinterManager {
-    private static final UUID SPP_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
-    private BluetoothSocket socket;
-    private OutputStream outputStream;
+    private static final byte[] STATUS_QUERY = {0x10, 0x04, 0x01}; // DLE EOT 1
+    // DLE EOT 1 (online), 2 (tutup/error), 4 (sensor kertas)
+    private static final byte[] STATUS_POLL = {0x10, 0x04, 0x01, 0x10, 0x04, 0x02, 0x10, 0x04, 0x04};
+    private static final long STATUS_POLL_INTERVAL_MS = 1000;
+    private static final long XOFF_TIMEOUT_MS = 30000;
+    private static final long CONNECT_TIMEOUT_MS = 15000;
+    private static final long PROBE_TIMEOUT_MS = 300;
+    private volatile PrinterTransport transport;
+    private volatile OutputStream outputStream;
+    private volatile PrinterStatusMonitor statusMonitor;
+    private volatile boolean lastPrintable = true;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int CHUNK_SIZE = 512; // aman untuk MTU RFCOMM printer 58mm murah
+    public static final int WIDTH_58MM_DOTS = 384;
+    public static final int WIDTH_80MM_DOTS = 576;
+    private final Context appContext;
     private final SharedPreferences prefs;
-    private PrinterStatusListener listener;
+    private final String pinnedAddress; // anggota pool: alamat tetap, tidak menimpa last_address
+    private final PrintJobScheduler scheduler;
+    private final PrinterTransport.Factory transportFactory;
+    private volatile LabelTemplate labelTemplate;
+    private volatile PrinterTextEncoder textEncoder;
+    private volatile PrinterStatusListener listener;
+
+    // Hanya dipakai thread penulis, jadi tidak perlu sinkronisasi
+    private final EscPosBuffer buffer = new EscPosBuffer(4096);
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+
+    public enum ConnectionState { IDLE, CONNECTING, READY, FAILED }
+
+    private volatile ConnectionState state = ConnectionState.IDLE;
+    private CountDownLatch attempt = new CountDownLatch(0); // dilepas saat keluar dari CONNECTING
+    private String connectingAddress;
+    private volatile String lastError;
+    private volatile long lastConnectLatencyMs = -1;
+    private volatile long lastLinkToFirstByteMs = -1;
+    private final ExecutorService connectExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "PrinterConnect");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Alamat "tcp://host[:port]" = printer LAN, "loopback://..." = printer palsu, selain itu MAC Bluetooth
+    public static final PrinterTransport.Factory DEFAULT_TRANSPORTS = address -> {
+        if (address.startsWith(PrinterTransport.SCHEME_TCP)) return TcpTransport.parse(address);
+        if (address.startsWith(PrinterTransport.SCHEME_LOOPBACK)) return new LoopbackTransport();
+        return new BluetoothSppTransport(address);
+    };
 
     public interface PrinterStatusListener {
         void onStatusChanged(String status);
+
+        // Status real-time dari printer (kertas, tutup, buffer). Opsional.
+        default void onPrinterStatus(PrinterStatus status) {}
     }
 
     public void setListener(PrinterStatusListener listener) {
@@ -27,94 +75,392 @@ public class BluetoothPrinterManager {
     }
 
     public BluetoothPrinterManager(Context context) {
+        this(context, null);
+    }
+
+    public BluetoothPrinterManager(Context context, String pinnedAddress) {
+        this(context, pinnedAddress, DEFAULT_TRANSPORTS);
+    }
+
+    public BluetoothPrinterManager(Context context, String pinnedAddress, PrinterTransport.Factory transportFactory) {
+        this.pinnedAddress = pinnedAddress;
+        this.transportFactory = transportFactory;
+        this.appContext = context.getApplicationContext();
         this.prefs = context.getSharedPreferences("PrinterPrefs", Context.MODE_PRIVATE);
+        this.scheduler = new PrintJobScheduler(this, QUEUE_CAPACITY);
+        this.textEncoder = new PrinterTextEncoder(getCodepage());
+        this.labelTemplate = compileTemplate(prefs.getString("label_template", LabelTemplate.DEFAULT_SOURCE));
+    }
+
+    private LabelTemplate compileTemplate(String source) {
+        return LabelTemplate.compile(source, getCodepage(), getPaperWidthDots() / LineBreaker.DOTS_PER_COLUMN);
+    }
+
+    public PrinterCodepage getCodepage() {
+        return PrinterCodepage.byName(prefs.getString("printer_codepage", null));
+    }
+
+    // GBK merusak huruf beraksen di nama/alamat; printer yang mendukung bisa pakai CP858 / UTF-8
+    public void setCodepage(PrinterCodepage codepage) {
+        prefs.edit().putString("printer_codepage", codepage.name()).commit();
+        textEncoder = new PrinterTextEncoder(codepage);
+        labelTemplate = compileTemplate(labelTemplate.getSource());
+    }
+
+    // Ganti layout label tanpa rilis aplikasi baru (dikirim dari web admin)
+    public void setLabelTemplate(String source) {
+        labelTemplate = compileTemplate(source);
+        prefs.edit().putString("label_template", source).apply();
+    }
+
+    public int getPaperWidthDots() {
+        return prefs.getInt("paper_width_dots", WIDTH_58MM_DOTS);
+    }
+
+    // Ganti kertas 58mm <-> 80mm: lebar logo dan pemotongan baris ikut menyesuaikan
+    public void setPaperWidthDots(int dots) {
+        prefs.edit().putInt("paper_width_dots", dots).commit();
+        labelTemplate = compileTemplate(labelTemplate.getSource());
     }
 
-    @SuppressLint("MissingPermission")
+    public String getLabelTemplateSource() {
+        return labelTemplate.getSource();
+    }
+
+    public void resetLabelTemplate() {
+        labelTemplate = compileTemplate(LabelTemplate.DEFAULT_SOURCE);
+        prefs.edit().remove("label_template").apply();
+    }
+
+    public ConnectionState getState() {
+        return state;
+    }
+
+    public long getLastConnectLatencyMs() {
+        return lastConnectLatencyMs;
+    }
+
+    // Dari link azzahra-print:// diterima sampai byte pertama label terkirim ke printer
+    public long getLastLinkToFirstByteMs() {
+        return lastLinkToFirstByteMs;
+    }
+
+    // Single-flight: kalau sedang menyambung, pemanggil berikutnya ikut menunggu percobaan yang sama
+    public void connectAsync(String address) {
+        synchronized (this) {
+            if (state == ConnectionState.CONNECTING && address.equals(connectingAddress)) return;
+            connectingAddress = address;
+            setState(ConnectionState.CONNECTING);
+        }
+        connectExecutor.execute(() -> doConnect(address));
+    }
+
+    // Blocking (jangan dari UI thread): sambungkan lalu tunggu sampai siap / gagal
     public void connect(String address) throws IOException {
-        BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
-        if (adapter == null) throw new IOException("Bluetooth tidak didukung");
-        
-        BluetoothDevice device = adapter.getRemoteDevice(address);
+        connectAsync(address);
+        if (!awaitReady(CONNECT_TIMEOUT_MS)) {
+            throw new IOException(lastError != null ? lastError : "Koneksi gagal.");
+        }
+    }
+
+    // Tunggu sampai status READY. Return false kalau gagal / timeout / tidak sedang menyambung.
+    public boolean awaitReady(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            CountDownLatch latch;
+            synchronized (this) {
+                if (state == ConnectionState.READY) return true;
+                if (state != ConnectionState.CONNECTING) return false;
+                latch = attempt;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return false;
+            try {
+                latch.await(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private synchronized void setState(ConnectionState newState) {
+        if (newState == state) return;
+        if (newState == ConnectionState.CONNECTING) attempt = new CountDownLatch(1);
+        else if (state == ConnectionState.CONNECTING) attempt.countDown();
+        state = newState;
+    }
+
+    private void doConnect(String address) {
+        synchronized (this) {
+            // Bisa jadi percobaan sebelumnya (alamat lain) sudah selesai duluan
+            connectingAddress = address;
+            setState(ConnectionState.CONNECTING);
+        }
+        long start = System.nanoTime();
         closeConnection();
-        
+
+        PrinterTransport newTransport;
+        try {
+            newTransport = transportFactory.create(address);
+        } catch (RuntimeException e) {
+            failConnect("Alamat printer tidak valid: " + address);
+            return;
+        }
         try {
             if (listener != null) listener.onStatusChanged("Menghubungkan...");
-            socket = device.createRfcommSocketToServiceRecord(SPP_UUID);
-            socket.connect();
+            newTransport.open();
         } catch (IOException e) {
-            try {
-                // Jalur Insecure untuk printer thermal murah
-                socket = (BluetoothSocket) device.getClass().getMethod("createInsecureRfcommSocketToServiceRecord", UUID.class).invoke(device, SPP_UUID);
-                if (socket != null) socket.connect();
-            } catch (Exception ex) {
-                if (listener != null) listener.onStatusChanged("Gagal!");
-                throw new IOException("Koneksi gagal.");
-            }
+            newTransport.close();
+            failConnect(e.getMessage() != null ? e.getMessage() : "Koneksi gagal.");
+            return;
         }
-        
-        if (socket != null && socket.isConnected()) {
-            outputStream = socket.getOutputStream();
-            try { Thread.sleep(1500); } catch (InterruptedException ignored) {}
-            
-            // Simpan alamat printer secara permanen untuk AUTO-CONNECT
-            prefs.edit().putString("last_address", address).apply();
-            
-            write(new byte[]{0x1B, 0x40}); // Reset
-            if (listener != null) listener.onStatusChanged("Terhubung ✅");
+
+        try {
+            transport = newTransport;
+            outputStream = newTransport.getOutputStream();
+            // Jalur balik hanya dibaca thread status, termasuk balasan probe
+            PrinterStatusMonitor monitor = new PrinterStatusMonitor(newTransport.getInputStream(), this::onPrinterStatus);
+            lastPrintable = true;
+            monitor.start();
+            statusMonitor = monitor;
+            probe(monitor);
+        } catch (IOException e) {
+            closeConnection();
+            failConnect("Printer tidak merespon: " + e.getMessage());
+            return;
         }
+
+        // Simpan alamat printer secara permanen untuk AUTO-CONNECT
+        if (pinnedAddress == null) prefs.edit().putString("last_address", address).apply();
+        lastConnectLatencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lastError = null;
+        setState(ConnectionState.READY);
+        Log.i("Printer", "Terhubung dalam " + lastConnectLatencyMs + " ms");
+        if (listener != null) listener.onStatusChanged("Terhubung ✅");
+    }
+
+    // Ganti sleep 1500 ms: reset printer lalu minta status real-time (DLE EOT 1).
+    // Begitu printer membalas, link dianggap siap. Printer yang tidak membalas ditunggu maksimal PROBE_TIMEOUT_MS.
+    // Query didaftarkan di monitor seperti query lain, jadi balasan yang telat tetap dicocokkan ke DLE EOT 1.
+    private void probe(PrinterStatusMonitor monitor) throws IOException {
+        write(EscPosBuffer.RESET);
+        if (!monitor.beginQueries(STATUS_QUERY)) return;
+        write(STATUS_QUERY);
+        try {
+            monitor.awaitReplies(PROBE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void onPrinterStatus(PrinterStatus status) {
+        Log.i("Printer", "Status: " + status.describe());
+        PrinterStatusListener l = listener;
+        if (l == null) return;
+        l.onPrinterStatus(status);
+        boolean printable = status.isPrintable();
+        if (printable != lastPrintable) {
+            lastPrintable = printable;
+            l.onStatusChanged(printable ? "Terhubung ✅" : status.describe() + " ⚠️");
+        }
+    }
+
+    public PrinterStatus getPrinterStatus() {
+        PrinterStatusMonitor m = statusMonitor;
+        return m == null ? PrinterStatus.UNKNOWN : m.getStatus();
+    }
+
+    // Siap menerima label baru (tidak kehabisan kertas / tutup terbuka / error)
+    public boolean isPrintable() {
+        return getPrinterStatus().isPrintable();
+    }
+
+    // Kirim query status tanpa menunggu balasan (balasan diurai thread status).
+    // Hanya dari thread penulis supaya tidak menyelip di tengah data label.
+    // Dipakai saat menunggu printer siap lagi; setelah label, query ikut di buffer label (lihat print).
+    private void queryStatus(PrinterStatusMonitor monitor) throws IOException {
+        OutputStream out = outputStream;
+        if (out == null || !monitor.beginQueries(STATUS_POLL)) return;
+        long start = System.nanoTime();
+        out.write(STATUS_POLL);
+        out.flush();
+        recordFlush(STATUS_POLL.length, start);
+    }
+
+    // Tahan label berikutnya selama kertas habis / tutup terbuka; lanjut otomatis begitu printer siap lagi
+    private void awaitPrintable(PrintJob job) throws IOException {
+        PrinterStatusMonitor monitor = statusMonitor;
+        if (monitor == null) return;
+        try {
+            while (!monitor.getStatus().isPrintable()) {
+                if (job.isCancelled()) throw new IOException("Dibatalkan");
+                if (!monitor.isRunning()) throw new IOException("Koneksi printer putus");
+                queryStatus(monitor);
+                long next = System.currentTimeMillis() + STATUS_POLL_INTERVAL_MS;
+                long now;
+                while ((now = System.currentTimeMillis()) < next && !monitor.getStatus().isPrintable()) {
+                    monitor.awaitChange(next - now);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Dibatalkan");
+        }
+    }
+
+    private void failConnect(String reason) {
+        lastError = reason;
+        setState(ConnectionState.FAILED);
+        Log.e("Printer", "Koneksi gagal: " + reason);
+        if (listener != null) listener.onStatusChanged("Gagal!");
     }
 
     public void write(byte[] data) throws IOException {
         if (outputStream != null) {
+            long start = System.nanoTime();
             outputStream.write(data);
             outputStream.flush();
+            recordFlush(data.length, start);
+        }
+    }
+
+    // Kirim per potongan lalu flush sekali. Kalau printer mengirim XOFF (buffer penuh),
+    // potongan berikutnya ditahan sampai XON, jadi tidak perlu memperlambat semua penulisan.
+    private void send(EscPosBuffer buf, PrintJob job) throws IOException {
+        OutputStream out = outputStream;
+        if (out == null) throw new IOException("Printer belum siap.");
+        PrinterStatusMonitor monitor = statusMonitor;
+        long start = System.nanoTime();
+        byte[] data = buf.array();
+        int size = buf.size();
+        for (int off = 0; off < size; off += CHUNK_SIZE) {
+            if (monitor != null) awaitWritable(monitor);
+            out.write(data, off, Math.min(CHUNK_SIZE, size - off));
+            if (off == 0 && job.getRequestNanos() != 0) recordFirstByte(job.getRequestNanos());
+        }
+        out.flush();
+        recordFlush(size, start);
+    }
+
+    private void recordFirstByte(long requestNanos) {
+        lastLinkToFirstByteMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestNanos);
+        Log.i("Printer", "Link -> byte pertama: " + lastLinkToFirstByteMs + " ms");
+    }
+
+    private static void awaitWritable(PrinterStatusMonitor monitor) throws IOException {
+        try {
+            if (!monitor.awaitWritable(XOFF_TIMEOUT_MS)) throw new IOException("Printer tidak menerima data (buffer penuh)");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Dibatalkan");
         }
     }
 
-    public void print(String text) throws IOException {
-        if (outputStream == null || !isConnected()) {
-            // Coba auto connect dulu jika belum konek
+    private void recordFlush(int bytes, long startNanos) {
+        writeNanos.addAndGet(System.nanoTime() - startNanos);
+        bytesWritten.addAndGet(bytes);
+        flushCount.incrementAndGet();
+    }
+
+    public long getBytesWritten() { return bytesWritten.get(); }
+    public long getFlushCount() { return flushCount.get(); }
+
+    public long getBytesPerFlush() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : bytesWritten.get() / flushes;
+    }
+
+    public long getBytesPerSecond() {
+        long nanos = writeNanos.get();
+        return nanos == 0 ? 0 : bytesWritten.get() * 1_000_000_000L / nanos;
+    }
+
+    // Cetak async lewat thread penulis. Aman dipanggil dari UI thread.
+    public PrintJob submit(String text, int priority, PrintJob.Listener jobListener) {
+        return submit(new PrintJob(text, priority, jobListener));
+    }
+
+    public PrintJob submit(PrintJob job) {
+        scheduler.submit(job);
+        return job;
+    }
+
+    public PrintJobScheduler getScheduler() {
+        return scheduler;
+    }
+
+    // Blocking! Hanya dipanggil dari thread penulis (PrintJobScheduler)
+    public void print(PrintJob job) throws IOException {
+        if (!isConnected()) {
+            // Coba auto connect dulu, lalu tunggu link siap (bukan sleep tetap)
             autoConnect();
-            throw new IOException("Printer belum siap. Sedang menyambungkan ulang...");
+            if (!awaitReady(CONNECT_TIMEOUT_MS)) {
+                throw new IOException("Printer belum siap. Sedang menyambungkan ulang...");
+            }
         }
-        
+        awaitPrintable(job);
+
         try {
-            write(new byte[]{0x1B, 0x40}); 
-            write(new byte[]{0x1B, 0x21, 0x08}); // BOLD
-            write(text.getBytes("GBK"));
-            write(new byte[]{0x0A, 0x0A, 0x0A});
+            // Rakit satu label utuh lalu kirim dengan sekali flush
+            PrinterTextEncoder encoder = textEncoder;
+            buffer.reset()
+                    .append(EscPosBuffer.RESET)
+                    .append(encoder.getCodepage().selectCommand())
+                    .append(EscPosBuffer.BOLD);
+            if (job.getLabel() != null) labelTemplate.render(job.getLabel(), buffer, LogoRaster.get(appContext, getPaperWidthDots()));
+            if (job.getText() != null) encoder.encode(job.getText(), buffer);
+            buffer.append(EscPosBuffer.FEED_3);
+            // Query status ikut di ujung label (tetap satu flush); balasannya menahan
+            // label berikutnya kalau kertas habis
+            PrinterStatusMonitor monitor = statusMonitor;
+            if (monitor != null && monitor.beginQueries(STATUS_POLL)) buffer.append(STATUS_POLL);
+            send(buffer, job);
         } catch (IOException e) {
-            closeConnection();
+            synchronized (this) {
+                closeConnection();
+                setState(ConnectionState.FAILED);
+            }
             if (listener != null) listener.onStatusChanged("Putus ❌");
             throw e;
         }
     }
 
-    public void closeConnection() {
+    public synchronized void closeConnection() {
         try {
             if (outputStream != null) outputStream.close();
-            if (socket != null) socket.close();
         } catch (Exception ignored) {}
+        if (statusMonitor != null) statusMonitor.stop();
+        if (transport != null) transport.close();
+        statusMonitor = null;
         outputStream = null;
-        socket = null;
+        transport = null;
+        if (state == ConnectionState.READY) setState(ConnectionState.IDLE);
     }
 
     public boolean isConnected() {
-        return socket != null && socket.isConnected();
+        PrinterTransport t = transport;
+        return state == ConnectionState.READY && t != null && t.isOpen();
+    }
+
+    // Untuk manager sementara (mis. benchmark): hentikan thread penulis & koneksi
+    public void shutdown() {
+        scheduler.shutdown();
+        connectExecutor.shutdownNow();
+        closeConnection();
+    }
+
+    public String getAddress() {
+        return pinnedAddress != null ? pinnedAddress : prefs.getString("last_address", null);
     }
 
     public void autoConnect() {
         // AMBIL ALAMAT TERAKHIR YANG TERSIMPAN
-        String lastAddr = prefs.getString("last_address", null);
-        if (lastAddr != null && !isConnected()) {
-            new Thread(() -> {
-                try {
-                    connect(lastAddr);
-                } catch (Exception e) {
-                    Log.e("Printer", "AutoConnect Gagal: " + e.getMessage());
-                }
-            }).start();
+        String lastAddr = getAddress();
+        if (lastAddr == null) return;
+        synchronized (this) {
+            if (state == ConnectionState.CONNECTING || isConnected()) return;
         }
+        connectAsync(lastAddr);
     }
 }
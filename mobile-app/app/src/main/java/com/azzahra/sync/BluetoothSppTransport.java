@@ -0,0 +1,69 @@
+package com.azzahra.sync;
+
+import android.annotation.SuppressLint;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothSocket;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+public class BluetoothSppTransport implements PrinterTransport {
+    private static final UUID SPP_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
+
+    private final String address;
+    private volatile BluetoothSocket socket;
+
+    public BluetoothSppTransport(String address) {
+        this.address = address;
+    }
+
+    @SuppressLint("MissingPermission")
+    @Override
+    public void open() throws IOException {
+        BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
+        if (adapter == null) throw new IOException("Bluetooth tidak didukung");
+
+        BluetoothDevice device = adapter.getRemoteDevice(address);
+        BluetoothSocket s;
+        try {
+            s = device.createRfcommSocketToServiceRecord(SPP_UUID);
+            s.connect();
+        } catch (IOException e) {
+            try {
+                // Jalur Insecure untuk printer thermal murah
+                s = (BluetoothSocket) device.getClass().getMethod("createInsecureRfcommSocketToServiceRecord", UUID.class).invoke(device, SPP_UUID);
+                if (s != null) s.connect();
+            } catch (Exception ex) {
+                throw new IOException("Koneksi gagal.");
+            }
+        }
+        if (s == null || !s.isConnected()) throw new IOException("Koneksi gagal.");
+        socket = s;
+    }
+
+    @Override
+    public boolean isOpen() {
+        BluetoothSocket s = socket;
+        return s != null && s.isConnected();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return socket.getOutputStream();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return socket.getInputStream();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (socket != null) socket.close();
+        } catch (Exception ignored) {}
+        socket = null;
+    }
+}
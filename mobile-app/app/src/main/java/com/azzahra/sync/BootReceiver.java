@@ -15,6 +15,8 @@ public class BootReceiver extends BroadcastReceiver {
             } else {
                 context.startService(serviceIntent);
             }
+            // Label yang belum tercetak sebelum HP mati
+            PrinterHub.get(context).resumeSpool();
         }
     }
 }
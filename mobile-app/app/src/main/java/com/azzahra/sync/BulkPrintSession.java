@@ -0,0 +1,329 @@
+package com.azzahra.sync;
+
+import android.util.Base64;
+import android.util.Base64InputStream;
+import android.util.Log;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Cetak massal dari payload web ("--- potong disini ---") secara streaming:
+// payload di-decode per baris, tiap label langsung jadi job sendiri sementara label
+// berikutnya masih di-parse. Kalau printer putus di tengah jalan, sesi berhenti dan
+// bisa dilanjutkan dari label terakhir yang sudah terkonfirmasi tercetak.
+public class BulkPrintSession {
+    private static final String TAG = "BulkPrint";
+    public static final String SEPARATOR = "--- potong disini ---";
+    private static final long SUBMIT_TIMEOUT_MS = 60000;
+
+    public interface ProgressListener {
+        void onProgress(int printed, int total); // total = -1 selama payload masih di-parse
+        void onPaused(int printed, String reason);
+        void onFinished(int printed);
+
+        // Per label yang selesai tercetak (urutan bisa acak kalau lewat beberapa printer)
+        default void onLabelPrinted(int index, PrintJob job) {}
+    }
+
+    // Tujuan job (PrinterPool); blocking sampai ada slot antrian atau timeout
+    public interface JobSink {
+        boolean submit(PrintJob job, long timeoutMs) throws InterruptedException;
+    }
+
+    private final JobSink printers;
+    private final ProgressListener listener;
+
+    // Label yang belum terkonfirmasi. null = sudah tercetak (dilepas dari memori).
+    private final List<Entry> labels = new ArrayList<>();
+    private final Map<Integer, PrintJob> inFlight = new HashMap<>();
+    private int confirmed; // jumlah label berurutan dari awal yang sudah tercetak
+    private int next;      // index label berikutnya yang akan dikirim ke antrian
+    private int total = -1;
+    private long requestNanos;
+    private PrintHistory history; // null = tanpa pengecekan duplikat (mis. benchmark)
+    private boolean reprint;
+    private int suppressed;
+    private PrintSpool spool; // null = tanpa spool disk
+    private boolean paused;
+    private boolean aborted;
+
+    private static class Entry {
+        final LabelData label; // label JSON dirender lewat template printer
+        final String text;     // teks polos dan/atau garis potong
+        final String dedupKey; // kunci PrintHistory, null kalau tanpa pengecekan duplikat
+        final long spoolId;    // id PrintSpool, 0 kalau tidak di-spool
+
+        Entry(LabelData label, String text, String dedupKey, long spoolId) {
+            this.label = label;
+            this.text = text;
+            this.dedupKey = dedupKey;
+            this.spoolId = spoolId;
+        }
+    }
+
+    public BulkPrintSession(JobSink printers, ProgressListener listener) {
+        this.printers = printers;
+        this.listener = listener;
+    }
+
+    // Buang label yang sudah dicetak dalam jendela waktu PrintHistory (kecuali reprint)
+    public void setPrintHistory(PrintHistory history, boolean reprint) {
+        this.history = history;
+        this.reprint = reprint;
+    }
+
+    // Catat setiap label ke spool disk supaya bisa dilanjutkan setelah aplikasi dibunuh
+    public void setSpool(PrintSpool spool) {
+        this.spool = spool;
+    }
+
+    public synchronized int getSuppressedCount() {
+        return suppressed;
+    }
+
+    public void start(String rawData) {
+        start(rawData, 0);
+    }
+
+    // requestNanos: System.nanoTime() saat link cetak diterima, untuk mengukur latency sampai byte pertama
+    public void start(String rawData, long requestNanos) {
+        this.requestNanos = requestNanos;
+        new Thread(() -> parse(rawData), "BulkParser").start();
+        new Thread(this::feed, "BulkFeeder").start();
+    }
+
+    public synchronized boolean isPaused() {
+        return paused && !aborted;
+    }
+
+    // Lanjutkan dari label pertama yang belum tercetak (dipanggil setelah printer tersambung lagi).
+    // Label yang masih dicetak printer lain di pool tidak dikirim ulang (lihat feed).
+    public synchronized void resume() {
+        if (!paused || aborted) return;
+        paused = false;
+        next = confirmed;
+        notifyAll();
+    }
+
+    // Lanjutkan label sisa dari spool (sesi sebelumnya yang terputus). Tanpa parse, tanpa cek duplikat.
+    public void startFromSpool(List<PrintSpool.SpooledLabel> spooled) {
+        synchronized (this) {
+            for (PrintSpool.SpooledLabel s : spooled) labels.add(new Entry(s.label, s.text, null, s.id));
+        }
+        finishParsing();
+        new Thread(this::feed, "BulkFeeder").start();
+    }
+
+    // Hentikan sesi. Label yang belum terkonfirmasi tercetak tetap di spool (hanya dilepas),
+    // jadi dicetak lagi oleh resume spool berikutnya; markDone hanya setelah printer konfirmasi.
+    public synchronized void abort() {
+        aborted = true;
+        for (PrintJob job : inFlight.values()) job.cancel();
+        for (Entry e : labels) {
+            if (e == null) continue;
+            // Label yang belum tercetak boleh dikirim lagi oleh sesi berikutnya
+            if (history != null && e.dedupKey != null) history.release(e.dedupKey);
+            if (spool != null && e.spoolId != 0) spool.release(e.spoolId);
+        }
+        notifyAll();
+    }
+
+    private void parse(String rawData) {
+        try {
+            // Coba anggap base64 dulu; kalau gagal sebelum ada label yang keluar, baca sebagai teks biasa
+            Reader decoded = new InputStreamReader(
+                    new Base64InputStream(new AsciiInputStream(rawData), Base64.DEFAULT), Charset.forName("UTF-8"));
+            if (!parse(new BufferedReader(decoded))) parse(new BufferedReader(new StringReader(rawData)));
+        } catch (IOException e) {
+            Log.e(TAG, "Parse gagal: " + e.getMessage());
+            finishParsing();
+        }
+    }
+
+    // Return false kalau payload ternyata bukan base64 (dan belum ada label yang di-emit)
+    private boolean parse(BufferedReader reader) throws IOException {
+        StringBuilder current = new StringBuilder();
+        int emitted = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().equals(SEPARATOR)) {
+                    if (emit(current, true)) emitted++;
+                    current.setLength(0);
+                } else {
+                    current.append(line).append('\n');
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            if (emitted == 0) return false;
+            throw new IOException(e.getMessage());
+        }
+        emit(current, false);
+        finishParsing();
+        return true;
+    }
+
+    private boolean emit(CharSequence raw, boolean followedBySeparator) {
+        String text = raw.toString();
+        if (text.trim().isEmpty()) return false;
+        LabelData label = null;
+        if (text.trim().startsWith("{")) {
+            try {
+                label = LabelData.fromJson(text);
+                text = null;
+            } catch (Exception e) {
+                Log.e(TAG, "Label JSON rusak: " + e.getMessage());
+            }
+        }
+        String key = null;
+        if (history != null) {
+            key = PrintHistory.keyFor(label, text);
+            if (!history.tryAcquire(key, reprint || (label != null && label.isReprint()))) {
+                synchronized (this) {
+                    suppressed++;
+                }
+                return true;
+            }
+        }
+        // Garis potong tetap dicetak agar staf packing tahu batas label
+        if (followedBySeparator) text = (text == null ? "" : text) + SEPARATOR + "\n";
+        long spoolId = spool != null ? spool.append(label, text) : 0;
+        Entry entry = new Entry(label, text, key, spoolId);
+        synchronized (this) {
+            if (aborted) {
+                if (key != null) history.release(key);
+                if (spoolId != 0) spool.release(spoolId);
+                return true;
+            }
+            labels.add(entry);
+            notifyAll();
+        }
+        return true;
+    }
+
+    private synchronized void finishParsing() {
+        total = labels.size();
+        notifyAll();
+    }
+
+    private void feed() {
+        while (true) {
+            int index;
+            PrintJob job;
+            synchronized (this) {
+                while (!aborted && !isComplete() && (paused || next >= labels.size())) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (aborted || isComplete()) break;
+                index = next++;
+                Entry entry = labels.get(index);
+                // Sudah tercetak, atau job-nya masih jalan di printer lain: jangan cetak dobel
+                if (entry == null || inFlight.containsKey(index)) continue;
+                // Kalau ternyata hanya satu label, perlakukan seperti label satuan
+                int priority = total == 1 ? PrintJob.PRIORITY_SINGLE : PrintJob.PRIORITY_BULK;
+                final int labelIndex = index;
+                job = new PrintJob(entry.label, entry.text, priority, j -> onJobUpdate(labelIndex, j));
+                if (index == 0 && requestNanos != 0) {
+                    job.setRequestNanos(requestNanos);
+                    requestNanos = 0; // hanya percobaan pertama, bukan cetak ulang setelah resume
+                }
+                inFlight.put(index, job);
+            }
+            try {
+                // Blocking saat antrian penuh = backpressure ke parser
+                printers.submit(job, SUBMIT_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        int printed;
+        synchronized (this) {
+            if (aborted) return;
+            printed = confirmed;
+        }
+        listener.onFinished(printed);
+    }
+
+    private boolean isComplete() {
+        return total >= 0 && confirmed >= total;
+    }
+
+    private void onJobUpdate(int index, PrintJob job) {
+        int printed, knownTotal;
+        boolean justPaused = false;
+        long doneSpoolId = 0;
+        synchronized (this) {
+            switch (job.getState()) {
+                case DONE:
+                    inFlight.remove(index, job);
+                    Entry done = labels.set(index, null);
+                    if (done != null) doneSpoolId = done.spoolId;
+                    while (confirmed < labels.size() && labels.get(confirmed) == null) confirmed++;
+                    break;
+                case FAILED:
+                    inFlight.remove(index, job);
+                    if (!paused && !aborted) {
+                        paused = true;
+                        justPaused = true;
+                        // Label setelahnya jangan sampai tercetak duluan; kirim ulang setelah resume
+                        for (Map.Entry<Integer, PrintJob> e : inFlight.entrySet()) {
+                            if (e.getKey() > index) e.getValue().cancel();
+                        }
+                    }
+                    break;
+                case CANCELLED:
+                    inFlight.remove(index, job);
+                    // Pembatalan baru sampai setelah resume melewati label ini: kirim ulang
+                    if (!aborted && index < next) next = index;
+                    break;
+                default:
+                    return;
+            }
+            printed = confirmed;
+            knownTotal = total;
+            notifyAll();
+        }
+        if (doneSpoolId != 0) spool.markDone(doneSpoolId);
+        if (justPaused) {
+            listener.onPaused(printed, job.getError());
+        } else if (job.getState() == PrintJob.State.DONE) {
+            listener.onLabelPrinted(index, job);
+            listener.onProgress(printed, knownTotal);
+        }
+    }
+
+    // Baca karakter String sebagai byte ASCII tanpa menyalin payload base64 ke byte[] baru
+    private static class AsciiInputStream extends InputStream {
+        private final String source;
+        private int pos;
+
+        AsciiInputStream(String source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() {
+            return pos < source.length() ? source.charAt(pos++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (pos >= source.length()) return -1;
+            int n = Math.min(len, source.length() - pos);
+            for (int i = 0; i < n; i++) b[off + i] = (byte) source.charAt(pos++);
+            return n;
+        }
+    }
+}
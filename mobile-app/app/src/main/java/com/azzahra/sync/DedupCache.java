@@ -0,0 +1,112 @@
+package com.azzahra.sync;
+
+// Penanda "sudah diproses" dengan memori tetap: tabel open-addressing fingerprint 64-bit -> waktu.
+// Tidak pernah tumbuh: slot kedaluwarsa dipakai ulang, dan kalau jendela probe penuh entri yang
+// masih hidup, entri tertua di jendela itu digusur (dihitung sebagai eviction).
+// Aman dipanggil dari banyak thread (semua operasi di bawah satu lock, tanpa alokasi).
+public final class DedupCache {
+    private static final int MAX_PROBE = 16;
+    private static final long EMPTY = 0;
+
+    private final long[] keys;
+    private final long[] times;
+    private final int mask;
+    private final long ttlMs;
+    private long hits, misses, evictions;
+
+    // capacity dibulatkan ke pangkat 2
+    public DedupCache(int capacity, long ttlMs) {
+        int size = Integer.highestOneBit(Math.max(MAX_PROBE, capacity - 1)) << 1;
+        keys = new long[size];
+        times = new long[size];
+        mask = size - 1;
+        this.ttlMs = ttlMs;
+    }
+
+    // true kalau fingerprint sudah tercatat dalam ttl terakhir (duplikat).
+    // false kalau baru / sudah kedaluwarsa, sekaligus dicatat dengan waktu nowMs.
+    public synchronized boolean seenRecently(long fingerprint, long nowMs) {
+        long key = fingerprint == EMPTY ? 1 : fingerprint;
+        int start = mix(key) & mask;
+        int free = -1;
+        int oldest = start;
+        for (int p = 0; p < MAX_PROBE; p++) {
+            int slot = (start + p) & mask;
+            long k = keys[slot];
+            if (k == key) {
+                if (nowMs - times[slot] < ttlMs) {
+                    hits++;
+                    return true;
+                }
+                times[slot] = nowMs;
+                misses++;
+                return false;
+            }
+            if (k == EMPTY) {
+                if (free < 0) free = slot;
+                break; // ujung rantai probe: key pasti tidak ada
+            }
+            if (free < 0 && nowMs - times[slot] >= ttlMs) free = slot;
+            if (times[slot] < times[oldest]) oldest = slot;
+        }
+        misses++;
+        if (free < 0) {
+            free = oldest;
+            evictions++;
+        }
+        keys[free] = key;
+        times[free] = nowMs;
+        return false;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public synchronized String describe() {
+        return "hit " + hits + ", miss " + misses + ", evict " + evictions + " (" + keys.length + " slot)";
+    }
+
+    // FNV-1a 64-bit atas a + b, hanya huruf/angka ASCII (normalisasi sama dengan docId notifikasi)
+    public static long fingerprint(CharSequence a, CharSequence b) {
+        long h = 0xcbf29ce484222325L;
+        h = fnv(h, a, false);
+        h ^= '_';
+        h *= 0x100000001b3L;
+        return fnv(h, b, true);
+    }
+
+    private static long fnv(long h, CharSequence s, boolean alphanumericOnly) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (alphanumericOnly && !isAsciiAlphanumeric(c)) continue;
+            h ^= c;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    static boolean isAsciiAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    // Sebar bit supaya fingerprint yang mirip tidak menumpuk di slot berdekatan
+    private static int mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        return (int) k;
+    }
+}
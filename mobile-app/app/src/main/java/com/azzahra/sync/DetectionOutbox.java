@@ -0,0 +1,293 @@
+package com.azzahra.sync;
+
+import android.content.Context;
+import android.util.Log;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.FieldValue;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Outbox deteksi pembayaran di disk (di atas Journal, fsync per record): deteksi dicatat lokal dulu,
+// baru dikirim ke Firestore lewat DetectionUploader. Entri baru dihapus setelah server mengonfirmasi.
+// - gagal kirim / belum login: dicoba lagi dengan exponential backoff + jitter
+// - maksimal MAX_IN_FLIGHT dokumen menunggu ack, jadi setelah lama offline antrian dikuras bertahap
+// - ID dokumen deterministik (paket + isi notifikasi), kirim ulang cukup menimpa dokumen yang sama
+public class DetectionOutbox {
+    private static final String TAG = "DetectionOutbox";
+    private static final String FILE_NAME = "detection_outbox.jnl";
+    static final String SECRET_KEY = "AZF-PAYMENT-SECRET-2024-xK9mP2vL8nQ4rT7w";
+    private static final int MAX_IN_FLIGHT = DetectionUploader.DEFAULT_MAX_BATCH;
+    private static final long BACKOFF_BASE_MS = 2000;
+    private static final long BACKOFF_MAX_MS = 5 * 60 * 1000;
+
+    private static DetectionOutbox instance;
+    // Jumlah antrian terakhir untuk UI: dibaca tanpa membuka jurnal atau menunggu lock saat fsync
+    private static volatile int cachedPending;
+
+    public static final class Detection {
+        public final String docId;
+        public final String bank;
+        public final long amount;
+        public final String rawText;
+        public final String ownerId; // "" kalau user belum terbaca saat deteksi, diisi saat dikirim
+        public final String timestamp;
+        // Untuk metrik latensi (epoch ms, 0 = tidak diketahui)
+        public final long postTime;   // notifikasi bank muncul
+        public final long queuedAtMs; // masuk outbox
+
+        public Detection(String docId, String bank, long amount, String rawText, String ownerId, String timestamp,
+                         long postTime, long queuedAtMs) {
+            this.docId = docId;
+            this.bank = bank;
+            this.amount = amount;
+            this.rawText = rawText;
+            this.ownerId = ownerId == null ? "" : ownerId;
+            this.timestamp = timestamp;
+            this.postTime = postTime;
+            this.queuedAtMs = queuedAtMs;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeUTF(docId);
+            out.writeUTF(bank);
+            out.writeLong(amount);
+            out.writeUTF(rawText);
+            out.writeUTF(ownerId);
+            out.writeUTF(timestamp);
+            out.writeLong(postTime);
+            out.writeLong(queuedAtMs);
+        }
+
+        static Detection readFrom(DataInputStream in) throws IOException {
+            String docId = in.readUTF(), bank = in.readUTF();
+            long amount = in.readLong();
+            String rawText = in.readUTF(), ownerId = in.readUTF(), timestamp = in.readUTF();
+            long postTime = in.readLong();
+            return new Detection(docId, bank, amount, rawText, ownerId, timestamp, postTime, in.readLong());
+        }
+
+        Map<String, Object> toDocument(String owner) {
+            Map<String, Object> d = new HashMap<>();
+            d.put("amount", amount);
+            d.put("bank", bank);
+            d.put("rawText", rawText);
+            d.put("secretKey", SECRET_KEY);
+            d.put("ownerId", owner);
+            d.put("timestamp", timestamp);
+            d.put("createdAt", FieldValue.serverTimestamp());
+            return d;
+        }
+    }
+
+    public interface Listener {
+        void onSynced(Detection detection);
+        void onRetry(String reason, long delayMs, int pending);
+    }
+
+    private final Journal journal; // null kalau file tidak bisa dibuka: kirim langsung tanpa jaminan
+    private final Set<Long> inFlight = new HashSet<>();
+    private final Random jitter = new Random();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "OutboxDrain");
+        t.setDaemon(true);
+        return t;
+    });
+    private DetectionUploader uploader;
+    private volatile Listener listener;
+    private ScheduledFuture<?> retry;
+    private int consecutiveFailures;
+    private long syncedCount;
+
+    private DetectionOutbox(Context context) {
+        Journal j = null;
+        try {
+            j = new Journal(new File(context.getFilesDir(), FILE_NAME), true);
+            if (j.pendingCount() > 0) Log.i(TAG, j.pendingCount() + " deteksi belum terkirim dari sesi sebelumnya");
+        } catch (IOException e) {
+            Log.e(TAG, "Outbox tidak bisa dibuka: " + e.getMessage());
+        }
+        journal = j;
+        updatePendingCount();
+    }
+
+    // Membuka outbox membaca ulang seluruh jurnal dari disk: jangan pertama kali dari main thread (pakai warmUp)
+    public static synchronized DetectionOutbox get(Context context) {
+        if (instance == null) instance = new DetectionOutbox(context.getApplicationContext());
+        return instance;
+    }
+
+    public static void warmUp(Context context) {
+        Context app = context.getApplicationContext();
+        new Thread(() -> get(app), "OutboxInit").start();
+    }
+
+    // Aman dari main thread; 0 selama outbox belum dibuka
+    public static int peekPendingCount() {
+        return cachedPending;
+    }
+
+    // Dipasang oleh NotificationService; sisa dari sesi sebelumnya langsung dikuras
+    public void attach(DetectionUploader uploader, Listener listener) {
+        this.listener = listener;
+        executor.execute(() -> {
+            this.uploader = uploader;
+            drain();
+        });
+    }
+
+    public void detach(DetectionUploader uploader) {
+        executor.execute(() -> {
+            if (this.uploader == uploader) this.uploader = null;
+        });
+        listener = null;
+    }
+
+    // Catat ke disk (fsync) lalu kirim. Jangan dipanggil dari main thread.
+    public void add(Detection detection) {
+        long id = 0;
+        if (journal != null) {
+            try {
+                id = journal.append(encode(detection));
+                updatePendingCount();
+            } catch (IOException e) {
+                Log.e(TAG, "Gagal menulis outbox, kirim tanpa outbox: " + e.getMessage());
+            }
+        }
+        long journalId = id;
+        executor.execute(() -> {
+            if (journalId == 0) send(0, detection);
+            else if (retry == null) drain(); // sedang backoff: ikut dikirim saat percobaan berikutnya
+        });
+    }
+
+    public int getPendingCount() {
+        return journal == null ? 0 : journal.pendingCount();
+    }
+
+    public synchronized long getSyncedCount() {
+        return syncedCount;
+    }
+
+    // Jalan di executor
+    private void drain() {
+        if (uploader == null || journal == null) return;
+        int slots = MAX_IN_FLIGHT - inFlight.size();
+        if (slots <= 0) return;
+        for (Journal.Record r : journal.pending()) {
+            if (slots <= 0) break;
+            if (inFlight.contains(r.id)) continue;
+            Detection d;
+            try {
+                d = decode(r.payload);
+            } catch (IOException e) {
+                Log.e(TAG, "Entri outbox #" + r.id + " rusak, dibuang");
+                markDone(r.id);
+                continue;
+            }
+            if (!send(r.id, d)) return;
+            slots--;
+        }
+    }
+
+    // Jalan di executor. false kalau belum bisa kirim (belum login) dan retry sudah dijadwalkan.
+    private boolean send(long id, Detection d) {
+        DetectionUploader up = uploader;
+        String owner = d.ownerId;
+        if (owner.isEmpty()) {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if (user != null) owner = user.getUid();
+        }
+        if (up == null || owner.isEmpty()) {
+            scheduleRetry("belum login");
+            return false;
+        }
+        if (id != 0) inFlight.add(id);
+        up.submit(d.docId, d.toDocument(owner), new DetectionUploader.Callback() {
+            @Override
+            public void onSuccess() {
+                executor.execute(() -> onSent(id, d));
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                executor.execute(() -> onFailed(id, e.getMessage()));
+            }
+        });
+        return true;
+    }
+
+    private void onSent(long id, Detection d) {
+        if (id != 0) {
+            inFlight.remove(id);
+            markDone(id);
+        }
+        consecutiveFailures = 0;
+        synchronized (this) {
+            syncedCount++;
+        }
+        Listener l = listener;
+        if (l != null) l.onSynced(d);
+        if (retry == null) drain();
+    }
+
+    private void onFailed(long id, String reason) {
+        if (id != 0) inFlight.remove(id);
+        // Satu batch gagal = satu kegagalan, bukan satu per dokumen
+        scheduleRetry(reason);
+    }
+
+    private void scheduleRetry(String reason) {
+        if (retry != null) return;
+        long delay = backoffMs(consecutiveFailures++);
+        Log.w(TAG, "Kirim ulang dalam " + delay + " ms: " + reason);
+        retry = executor.schedule(() -> {
+            retry = null;
+            drain();
+        }, delay, TimeUnit.MILLISECONDS);
+        Listener l = listener;
+        if (l != null) l.onRetry(reason, delay, getPendingCount());
+    }
+
+    // Exponential backoff dengan "equal jitter": separuh tetap, separuh acak
+    private long backoffMs(int failures) {
+        long cap = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(failures, 16));
+        return cap / 2 + (long) (jitter.nextDouble() * (cap / 2));
+    }
+
+    private void markDone(long id) {
+        try {
+            journal.markDone(id);
+            updatePendingCount();
+        } catch (IOException e) {
+            Log.e(TAG, "Gagal menandai outbox: " + e.getMessage());
+        }
+    }
+
+    private void updatePendingCount() {
+        cachedPending = getPendingCount();
+    }
+
+    private static byte[] encode(Detection d) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        d.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static Detection decode(byte[] payload) throws IOException {
+        return Detection.readFrom(new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+}
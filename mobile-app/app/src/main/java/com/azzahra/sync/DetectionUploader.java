@@ -0,0 +1,167 @@
+package com.azzahra.sync;
+
+import android.util.Log;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Upload deteksi pembayaran dalam WriteBatch Firestore: satu round-trip untuk banyak transfer masuk.
+// Batch dikirim saat penuh (maxBatch, maks 500 dari Firestore) atau setelah lingerMs sejak deteksi
+// pertama masuk antrian. Tiap deteksi tetap dapat callback sukses/gagal sendiri.
+public class DetectionUploader {
+    private static final String TAG = "DetectionUploader";
+    public static final int FIRESTORE_BATCH_LIMIT = 500;
+    public static final int DEFAULT_MAX_BATCH = 50;
+    public static final long DEFAULT_LINGER_MS = 400;
+
+    public interface Callback {
+        void onSuccess();
+        void onFailure(Exception e);
+    }
+
+    private static final class Pending {
+        final String docId;
+        final Map<String, Object> data;
+        final Callback callback;
+
+        Pending(String docId, Map<String, Object> data, Callback callback) {
+            this.docId = docId;
+            this.data = data;
+            this.callback = callback;
+        }
+    }
+
+    private static final class Batch {
+        final List<Pending> items;
+        final long startNanos; // saat deteksi pertama masuk antrian
+
+        Batch(List<Pending> items, long startNanos) {
+            this.items = items;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private final FirebaseFirestore db;
+    private final String collection;
+    private final int maxBatch;
+    private final long lingerMs;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "DetectionLinger");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private List<Pending> pending = new ArrayList<>();
+    private long firstQueuedNanos;
+    private ScheduledFuture<?> lingerFlush;
+
+    // Statistik
+    private long batchesCommitted;
+    private long batchesFailed;
+    private long docsCommitted;
+    private int lastBatchSize;
+    private long lastFlushLatencyMs;
+    private long maxFlushLatencyMs;
+
+    public DetectionUploader(FirebaseFirestore db, String collection) {
+        this(db, collection, DEFAULT_MAX_BATCH, DEFAULT_LINGER_MS);
+    }
+
+    public DetectionUploader(FirebaseFirestore db, String collection, int maxBatch, long lingerMs) {
+        this.db = db;
+        this.collection = collection;
+        this.maxBatch = Math.max(1, Math.min(maxBatch, FIRESTORE_BATCH_LIMIT));
+        this.lingerMs = lingerMs;
+    }
+
+    // Callback dipanggil di main thread (listener Task Firestore)
+    public void submit(String docId, Map<String, Object> data, Callback callback) {
+        Batch full = null;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                firstQueuedNanos = System.nanoTime();
+                lingerFlush = timer.schedule(this::flush, lingerMs, TimeUnit.MILLISECONDS);
+            }
+            pending.add(new Pending(docId, data, callback));
+            if (pending.size() >= maxBatch) full = takePending();
+        }
+        if (full != null) commit(full);
+    }
+
+    // Kirim yang sudah terkumpul sekarang juga
+    public void flush() {
+        Batch batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            batch = takePending();
+        }
+        commit(batch);
+    }
+
+    public synchronized int getQueuedCount() {
+        return pending.size();
+    }
+
+    public synchronized String describe() {
+        long avg = batchesCommitted == 0 ? 0 : docsCommitted / batchesCommitted;
+        return "batch " + batchesCommitted + " (gagal " + batchesFailed + "), rata2 " + avg + " dok/batch, terakhir "
+                + lastBatchSize + " dok " + lastFlushLatencyMs + " ms, maks " + maxFlushLatencyMs + " ms";
+    }
+
+    public synchronized int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public synchronized long getLastFlushLatencyMs() {
+        return lastFlushLatencyMs;
+    }
+
+    public void shutdown() {
+        flush();
+        timer.shutdownNow();
+    }
+
+    // Harus dipanggil dengan lock
+    private Batch takePending() {
+        Batch batch = new Batch(pending, firstQueuedNanos);
+        pending = new ArrayList<>();
+        if (lingerFlush != null) lingerFlush.cancel(false);
+        lingerFlush = null;
+        return batch;
+    }
+
+    private void commit(Batch batch) {
+        int size = batch.items.size();
+        WriteBatch wb = db.batch();
+        for (Pending p : batch.items) wb.set(db.collection(collection).document(p.docId), p.data);
+        wb.commit()
+                .addOnSuccessListener(v -> {
+                    onCommitted(size, batch.startNanos, true);
+                    for (Pending p : batch.items) p.callback.onSuccess();
+                })
+                .addOnFailureListener(e -> {
+                    onCommitted(size, batch.startNanos, false);
+                    Log.e(TAG, "Batch " + size + " dokumen gagal: " + e.getMessage());
+                    for (Pending p : batch.items) p.callback.onFailure(e);
+                });
+    }
+
+    private synchronized void onCommitted(int size, long startNanos, boolean ok) {
+        if (!ok) {
+            batchesFailed++;
+            return;
+        }
+        batchesCommitted++;
+        docsCommitted += size;
+        lastBatchSize = size;
+        lastFlushLatencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (lastFlushLatencyMs > maxFlushLatencyMs) maxFlushLatencyMs = lastFlushLatencyMs;
+        Log.i(TAG, describe());
+    }
+}
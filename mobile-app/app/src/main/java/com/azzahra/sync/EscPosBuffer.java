@@ -0,0 +1,108 @@
+package com.azzahra.sync;
+
+import java.util.Arrays;
+
+// Buffer byte yang dipakai ulang: satu label (atau beberapa) dirakit dulu di sini,
+// baru dikirim ke socket dalam potongan seukuran MTU dengan SATU kali flush.
+public class EscPosBuffer {
+    public static final byte[] RESET = {0x1B, 0x40};
+    public static final byte[] BOLD = {0x1B, 0x21, 0x08};
+    public static final byte[] FEED_3 = {0x0A, 0x0A, 0x0A};
+    public static final int ALIGN_LEFT = 0;
+    public static final int ALIGN_CENTER = 1;
+
+    private static final byte[] QR_MODEL_2 = {0x1D, 0x28, 0x6B, 0x04, 0x00, 0x31, 0x41, 0x32, 0x00};
+    private static final byte[] QR_MODULE_SIZE = {0x1D, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x43};
+    private static final byte[] QR_ERROR_M = {0x1D, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x45, 0x31};
+    private static final byte[] QR_STORE = {0x1D, 0x28, 0x6B};
+    private static final byte[] QR_PRINT = {0x1D, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x51, 0x30};
+
+    private byte[] data;
+    private int size;
+
+    public EscPosBuffer(int initialCapacity) {
+        data = new byte[initialCapacity];
+    }
+
+    public EscPosBuffer reset() {
+        size = 0;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] array() {
+        return data;
+    }
+
+    public EscPosBuffer append(byte[] bytes) {
+        return append(bytes, 0, bytes.length);
+    }
+
+    public EscPosBuffer append(byte[] bytes, int off, int len) {
+        ensureCapacity(size + len);
+        System.arraycopy(bytes, off, data, size, len);
+        size += len;
+        return this;
+    }
+
+    public EscPosBuffer append(int b) {
+        ensureCapacity(size + 1);
+        data[size++] = (byte) b;
+        return this;
+    }
+
+    // ESC a n
+    public EscPosBuffer appendAlign(int align) {
+        return append(0x1B).append(0x61).append(align);
+    }
+
+    // Barcode CODE128 set B native printer (GS k 73). Karakter di luar ASCII cetak dilewati.
+    // '{' di data ditulis "{{": '{' tunggal dibaca printer sebagai awal perintah ganti set / FNC.
+    public EscPosBuffer appendCode128(CharSequence data, int height, int moduleWidth) {
+        int len = 0; // byte data setelah "{B", maks 253 (n = len + 2 <= 255)
+        int chars = 0;
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c < 32 || c >= 127) continue;
+            int cost = c == '{' ? 2 : 1;
+            if (len + cost > 253) break;
+            len += cost;
+            chars++;
+        }
+        if (len == 0) return this;
+        append(0x1D).append(0x68).append(height);      // GS h tinggi
+        append(0x1D).append(0x77).append(moduleWidth); // GS w lebar modul
+        append(0x1D).append(0x48).append(2);           // GS H teks HRI di bawah barcode
+        append(0x1D).append(0x6B).append(73).append(len + 2).append('{').append('B');
+        int written = 0;
+        for (int i = 0; i < data.length() && written < chars; i++) {
+            char c = data.charAt(i);
+            if (c >= 32 && c < 127) {
+                if (c == '{') append('{');
+                append(c);
+                written++;
+            }
+        }
+        return append(0x0A);
+    }
+
+    // QR code native printer (GS ( k): model 2, koreksi error M
+    public EscPosBuffer appendQrCode(byte[] data, int moduleSize) {
+        if (data.length == 0) return this;
+        int storeLen = data.length + 3;
+        append(QR_MODEL_2);
+        append(QR_MODULE_SIZE).append(moduleSize);
+        append(QR_ERROR_M);
+        append(QR_STORE).append(storeLen & 0xFF).append((storeLen >> 8) & 0xFF).append(0x31).append(0x50).append(0x30);
+        append(data);
+        append(QR_PRINT);
+        return append(0x0A);
+    }
+
+    public void ensureCapacity(int min) {
+        if (min > data.length) data = Arrays.copyOf(data, Math.max(min, data.length * 2));
+    }
+}
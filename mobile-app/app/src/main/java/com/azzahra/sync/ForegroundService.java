@@ -18,13 +18,28 @@ public class ForegroundService extends Service {
 
     public static final String CHANNEL_ID = "AzzahraSyncChannelV2";
     private final Handler watchdogHandler = new Handler(Looper.getMainLooper());
+    private static final long PRINTER_KEEPALIVE_MS = 20000;
     private Runnable watchdogRunnable;
+    private Runnable printerKeepAlive;
 
     @Override
     public void onCreate() {
         super.onCreate();
         // Memulai sistem penjaga otomatis
         startWatchdog();
+        startPrinterKeepAlive();
+    }
+
+    // Printer tetap tersambung selama app di background, jadi link cetak dari web langsung jalan
+    private void startPrinterKeepAlive() {
+        printerKeepAlive = new Runnable() {
+            @Override
+            public void run() {
+                PrinterHub.get(ForegroundService.this).keepWarm();
+                watchdogHandler.postDelayed(this, PRINTER_KEEPALIVE_MS);
+            }
+        };
+        watchdogHandler.post(printerKeepAlive);
     }
 
     private void startWatchdog() {
@@ -69,6 +84,7 @@ public class ForegroundService extends Service {
         if (watchdogHandler != null && watchdogRunnable != null) {
             watchdogHandler.removeCallbacks(watchdogRunnable);
         }
+        if (printerKeepAlive != null) watchdogHandler.removeCallbacks(printerKeepAlive);
         super.onDestroy();
     }
 
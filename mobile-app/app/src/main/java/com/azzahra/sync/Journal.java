@@ -0,0 +1,211 @@
+package com.azzahra.sync;
+
+import android.util.Log;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Jurnal append-only di disk untuk antrian yang harus selamat dari process death
+// (spool cetak, outbox upload deteksi pembayaran). Setiap record: [tipe 1][id 8][panjang 4][payload][crc32 4].
+// Saat dibuka, file dibaca ulang: record yang terpotong / rusak di ekor (crash saat menulis)
+// dibuang, lalu entri yang belum DONE dikembalikan berurutan. Compaction menulis ulang
+// entri yang masih pending ke file baru lalu rename atomik.
+public class Journal {
+    private static final String TAG = "Journal";
+    private static final int MAGIC = 0x415A4A31; // "AZJ1"
+    private static final byte TYPE_APPEND = 1;
+    private static final byte TYPE_DONE = 2;
+    private static final int HEADER_SIZE = 4;
+    private static final int RECORD_OVERHEAD = 1 + 8 + 4 + 4;
+    private static final int MAX_PAYLOAD = 1 << 20;
+    private static final int COMPACT_MIN_DONE = 256;
+
+    public static final class Record {
+        public final long id;
+        public final byte[] payload;
+
+        Record(long id, byte[] payload) {
+            this.id = id;
+            this.payload = payload;
+        }
+    }
+
+    private final File file;
+    private final boolean syncEachWrite;
+    private final LinkedHashMap<Long, byte[]> pending = new LinkedHashMap<>();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private long nextId = 1;
+    private int doneSinceCompact;
+
+    // syncEachWrite=true: fsync setiap record (tahan mati listrik, lebih lambat).
+    // false: cukup sampai ke kernel, tetap selamat kalau hanya proses aplikasi yang dibunuh.
+    public Journal(File file, boolean syncEachWrite) throws IOException {
+        this.file = file;
+        this.syncEachWrite = syncEachWrite;
+        long validLength = recover();
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        if (validLength < HEADER_SIZE) {
+            channel.truncate(0);
+            writeHeader(channel);
+        } else if (channel.size() > validLength) {
+            Log.w(TAG, file.getName() + ": ekor rusak " + (channel.size() - validLength) + " byte dibuang");
+            channel.truncate(validLength);
+        }
+        channel.position(channel.size());
+    }
+
+    public synchronized long append(byte[] payload) throws IOException {
+        if (payload.length > MAX_PAYLOAD) throw new IOException("Record terlalu besar: " + payload.length);
+        long id = nextId++;
+        writeRecord(TYPE_APPEND, id, payload);
+        pending.put(id, payload);
+        return id;
+    }
+
+    public synchronized void markDone(long id) throws IOException {
+        if (pending.remove(id) == null) return;
+        if (pending.isEmpty()) {
+            // Kasus umum setelah satu batch selesai: kosongkan file, tidak perlu menulis record DONE
+            channel.truncate(HEADER_SIZE);
+            channel.position(HEADER_SIZE);
+            if (syncEachWrite) channel.force(false);
+            doneSinceCompact = 0;
+            return;
+        }
+        writeRecord(TYPE_DONE, id, null);
+        if (++doneSinceCompact >= COMPACT_MIN_DONE && doneSinceCompact > pending.size()) compact();
+    }
+
+    // Entri yang belum DONE, urut sesuai waktu append
+    public synchronized List<Record> pending() {
+        List<Record> out = new ArrayList<>(pending.size());
+        for (Map.Entry<Long, byte[]> e : pending.entrySet()) out.add(new Record(e.getKey(), e.getValue()));
+        return out;
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    public synchronized long sizeBytes() throws IOException {
+        return channel.size();
+    }
+
+    public synchronized void close() {
+        try {
+            channel.close();
+            raf.close();
+        } catch (IOException ignored) {}
+    }
+
+    private void writeRecord(byte type, long id, byte[] payload) throws IOException {
+        int len = payload == null ? 0 : payload.length;
+        if (scratch.capacity() < RECORD_OVERHEAD + len) scratch = ByteBuffer.allocate(RECORD_OVERHEAD + len);
+        scratch.clear();
+        scratch.put(type).putLong(id).putInt(len);
+        if (payload != null) scratch.put(payload);
+        crc.reset();
+        crc.update(scratch.array(), 0, scratch.position());
+        scratch.putInt((int) crc.getValue());
+        scratch.flip();
+        while (scratch.hasRemaining()) channel.write(scratch);
+        if (syncEachWrite) channel.force(false);
+    }
+
+    // Tulis ulang hanya entri pending ke file sementara, fsync, lalu rename (atomik)
+    private void compact() throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        RandomAccessFile oldRaf = raf;
+        FileChannel oldChannel = channel;
+        RandomAccessFile newRaf = new RandomAccessFile(tmp, "rw");
+        FileChannel newChannel = newRaf.getChannel();
+        try {
+            newChannel.truncate(0);
+            writeHeader(newChannel);
+            channel = newChannel;
+            for (Map.Entry<Long, byte[]> e : pending.entrySet()) writeRecord(TYPE_APPEND, e.getKey(), e.getValue());
+            newChannel.force(true);
+        } catch (IOException e) {
+            channel = oldChannel;
+            newChannel.close();
+            newRaf.close();
+            tmp.delete();
+            throw e;
+        }
+        if (!tmp.renameTo(file)) {
+            channel = oldChannel;
+            newChannel.close();
+            newRaf.close();
+            tmp.delete();
+            throw new IOException("Compaction gagal: rename " + tmp.getName());
+        }
+        oldChannel.close();
+        oldRaf.close();
+        raf = newRaf;
+        channel.position(channel.size());
+        doneSinceCompact = 0;
+        Log.i(TAG, file.getName() + " dipadatkan: " + pending.size() + " entri, " + channel.size() + " byte");
+    }
+
+    private static void writeHeader(FileChannel ch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).flip();
+        while (header.hasRemaining()) ch.write(header);
+    }
+
+    // Baca seluruh file, isi pending & nextId. Return panjang byte yang valid.
+    private long recover() throws IOException {
+        if (!file.exists() || file.length() < HEADER_SIZE) return 0;
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                File bad = new File(file.getPath() + ".bad");
+                Log.e(TAG, file.getName() + ": format tidak dikenal, dipindah ke " + bad.getName());
+                file.renameTo(bad);
+                return 0;
+            }
+            valid = HEADER_SIZE;
+            byte[] head = new byte[1 + 8 + 4];
+            ByteBuffer headView = ByteBuffer.wrap(head);
+            while (true) {
+                try {
+                    in.readFully(head);
+                    byte type = head[0];
+                    long id = headView.getLong(1);
+                    int len = headView.getInt(9);
+                    if ((type != TYPE_APPEND && type != TYPE_DONE) || len < 0 || len > MAX_PAYLOAD) break;
+                    byte[] payload = new byte[len];
+                    in.readFully(payload);
+                    int storedCrc = in.readInt();
+                    crc.reset();
+                    crc.update(head);
+                    crc.update(payload);
+                    if ((int) crc.getValue() != storedCrc) break;
+
+                    if (type == TYPE_APPEND) pending.put(id, payload);
+                    else pending.remove(id);
+                    if (id >= nextId) nextId = id + 1;
+                    valid += RECORD_OVERHEAD + len;
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        }
+        return valid;
+    }
+}
@@ -0,0 +1,50 @@
+package com.azzahra.sync;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Isi variabel satu label pengiriman (dari JSON order web)
+public class LabelData {
+    private final String[] values = new String[LabelTemplate.Field.values().length];
+    private boolean reprint; // "reprint": true = cetak ulang walau baru saja dicetak
+
+    public static LabelData fromJson(String jsonData) throws JSONException {
+        JSONObject obj = new JSONObject(jsonData);
+        LabelData data = new LabelData();
+        for (LabelTemplate.Field f : LabelTemplate.Field.values()) {
+            data.values[f.ordinal()] = obj.optString(f.key, "");
+        }
+        data.reprint = obj.optBoolean("reprint", false);
+        return data;
+    }
+
+    public boolean isReprint() {
+        return reprint;
+    }
+
+    // Format biner ringkas untuk spool cetak di disk
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(values.length);
+        for (String v : values) out.writeUTF(v == null ? "" : v);
+        out.writeBoolean(reprint);
+    }
+
+    public static LabelData readFrom(DataInput in) throws IOException {
+        LabelData data = new LabelData();
+        int n = in.readUnsignedByte();
+        for (int i = 0; i < n; i++) {
+            String v = in.readUTF();
+            if (i < data.values.length) data.values[i] = v;
+        }
+        data.reprint = in.readBoolean();
+        return data;
+    }
+
+    public String get(LabelTemplate.Field field) {
+        String v = values[field.ordinal()];
+        return v == null ? "" : v;
+    }
+}
@@ -0,0 +1,174 @@
+package com.azzahra.sync;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+// Layout label dikompilasi SEKALI menjadi potongan byte tetap (sudah di-encode) + slot variabel.
+// Saat render, hanya isi slot (nama, alamat, dst.) yang di-encode ke buffer printer.
+// Format template: teks biasa dengan placeholder {name} {phone} {address} {items} {courier} {orderId},
+// plus perintah {logo} (logo toko raster), {qr} dan {barcode} (order ID sebagai QR / CODE128 native printer).
+public class LabelTemplate {
+    public static final int PAPER_COLUMNS = LineBreaker.COLUMNS_58MM;
+
+    public static final String DEFAULT_SOURCE =
+            "{logo}================================\n" +
+            "         AZZAHRA FASHION        \n" +
+            "================================\n" +
+            "Kepada : {name}\n" +
+            "Telp   : {phone}\n" +
+            "Alamat : {address}\n" +
+            "--------------------------------\n" +
+            "Item   : {items}\n" +
+            "Ekspedisi: {courier}\n" +
+            "--------------------------------\n" +
+            "Order #{orderId}\n" +
+            "{qr}================================\n";
+
+    private static final int CMD_NONE = 0;
+    private static final int CMD_LOGO = 1;
+    private static final int CMD_QR = 2;
+    private static final int CMD_BARCODE = 3;
+
+    public enum Field {
+        NAME("name", false),
+        PHONE("phone", false),
+        ADDRESS("address", true),
+        ITEMS("items", true),
+        COURIER("courier", false),
+        ORDER_ID("orderId", false);
+
+        final String key;
+        final boolean wrap; // teks panjang dipotong per baris, menjorok sejajar kolom slot
+
+        Field(String key, boolean wrap) {
+            this.key = key;
+            this.wrap = wrap;
+        }
+
+        static Field byKey(String key) {
+            for (Field f : values()) if (f.key.equals(key)) return f;
+            return null;
+        }
+    }
+
+    private static class Segment {
+        final byte[] bytes;  // potongan tetap, null kalau slot
+        final Field field;   // slot variabel, null kalau potongan tetap
+        final int column;    // posisi kolom slot (untuk indentasi baris lanjutan)
+        final int command;   // CMD_* untuk logo / QR / barcode
+
+        Segment(byte[] bytes, Field field, int column, int command) {
+            this.bytes = bytes;
+            this.field = field;
+            this.column = column;
+            this.command = command;
+        }
+    }
+
+    private static int commandByKey(String key) {
+        switch (key) {
+            case "logo": return CMD_LOGO;
+            case "qr": return CMD_QR;
+            case "barcode": return CMD_BARCODE;
+            default: return CMD_NONE;
+        }
+    }
+
+    private final String source;
+    private final Charset charset;
+    private final PrinterTextEncoder encoder;
+    private final Segment[] segments;
+    private final LineBreaker lineBreaker;
+    // Dipakai ulang oleh thread penulis printer saja
+    private final StringBuilder scratch = new StringBuilder(128);
+
+    private LabelTemplate(String source, PrinterCodepage codepage, Segment[] segments, LineBreaker lineBreaker) {
+        this.source = source;
+        this.charset = codepage.charset();
+        this.encoder = new PrinterTextEncoder(codepage);
+        this.segments = segments;
+        this.lineBreaker = lineBreaker;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public static LabelTemplate compile(String source, PrinterCodepage codepage) {
+        return compile(source, codepage, PAPER_COLUMNS);
+    }
+
+    // columns: 32 untuk kertas 58mm, 48 untuk 80mm
+    public static LabelTemplate compile(String source, PrinterCodepage codepage, int columns) {
+        Charset charset = codepage.charset();
+        List<Segment> out = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int column = 0;
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '{') {
+                int close = source.indexOf('}', i);
+                String key = close > i ? source.substring(i + 1, close) : "";
+                Field field = Field.byKey(key);
+                int command = commandByKey(key);
+                if (field != null || command != CMD_NONE) {
+                    if (literal.length() > 0) out.add(new Segment(literal.toString().getBytes(charset), null, 0, CMD_NONE));
+                    literal.setLength(0);
+                    out.add(new Segment(null, field, column, command));
+                    // Logo/QR/barcode selalu diakhiri ganti baris oleh printer
+                    if (command != CMD_NONE) column = 0;
+                    i = close + 1;
+                    continue;
+                }
+            }
+            literal.append(c);
+            column = c == '\n' ? 0 : column + 1;
+            i++;
+        }
+        if (literal.length() > 0) out.add(new Segment(literal.toString().getBytes(charset), null, 0, CMD_NONE));
+        return new LabelTemplate(source, codepage, out.toArray(new Segment[0]), new LineBreaker(columns));
+    }
+
+    // logo = hasil LogoRaster (boleh null kalau toko belum pasang logo)
+    public void render(LabelData data, EscPosBuffer out, byte[] logo) {
+        for (Segment seg : segments) {
+            if (seg.bytes != null) {
+                out.append(seg.bytes);
+                continue;
+            }
+            if (seg.command != CMD_NONE) {
+                renderCommand(seg.command, data, out, logo);
+                continue;
+            }
+            String value = data.get(seg.field);
+            if (value.isEmpty()) continue;
+            if (seg.field.wrap) {
+                scratch.setLength(0);
+                lineBreaker.wrap(value, seg.column, seg.column, scratch);
+                encoder.encode(scratch, out);
+            } else {
+                encoder.encode(value, out);
+            }
+        }
+    }
+
+    private void renderCommand(int command, LabelData data, EscPosBuffer out, byte[] logo) {
+        String orderId = data.get(Field.ORDER_ID);
+        if (command == CMD_LOGO ? logo == null : orderId.isEmpty()) return;
+        out.appendAlign(EscPosBuffer.ALIGN_CENTER);
+        switch (command) {
+            case CMD_LOGO:
+                out.append(logo);
+                break;
+            case CMD_QR:
+                out.appendQrCode(orderId.getBytes(charset), 6);
+                break;
+            case CMD_BARCODE:
+                out.appendCode128(orderId, 60, 2);
+                break;
+        }
+        out.appendAlign(EscPosBuffer.ALIGN_LEFT);
+    }
+}
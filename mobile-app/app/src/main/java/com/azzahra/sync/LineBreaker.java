@@ -0,0 +1,120 @@
+package com.azzahra.sync;
+
+// Pemotong baris untuk kertas thermal, tanpa alokasi: membaca langsung dari CharSequence
+// dan menulis ke StringBuilder milik pemanggil (dipakai ulang antar label).
+// - lebar dihitung per kolom tampilan: huruf CJK/fullwidth/emoji = 2 kolom, tanda diakritik gabung = 0
+// - kata yang lebih panjang dari satu baris dipotong paksa (mis. nomor resi / link panjang)
+// - baris lanjutan menjorok sebanyak indent (hanging indent, sejajar kolom isi)
+public final class LineBreaker {
+    public static final int COLUMNS_58MM = 32; // 384 dot, font A 12 dot
+    public static final int COLUMNS_80MM = 48; // 576 dot
+    public static final int DOTS_PER_COLUMN = 12;
+
+    private final int columns;
+
+    public LineBreaker(int columns) {
+        if (columns < 1) throw new IllegalArgumentException("Lebar kertas tidak valid: " + columns);
+        this.columns = columns;
+    }
+
+    public static LineBreaker forPaperWidthDots(int dots) {
+        return new LineBreaker(Math.max(1, dots / DOTS_PER_COLUMN));
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    // Tulis text mulai dari kolom startColumn. Baris lanjutan diawali indent spasi.
+    // Spasi berturut-turut diringkas jadi satu, '\n' di teks tetap memaksa ganti baris.
+    // Return: kolom posisi terakhir (untuk menyambung teks berikutnya).
+    public int wrap(CharSequence text, int startColumn, int indent, StringBuilder out) {
+        if (indent >= columns) indent = 0; // jangan sampai baris lanjutan tidak muat satu huruf pun
+        int col = startColumn;
+        boolean lineEmpty = true;
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                col = newLine(indent, out);
+                lineEmpty = true;
+                i++;
+                continue;
+            }
+            if (isSpace(c)) {
+                i++;
+                continue;
+            }
+
+            // Ukur satu kata [i, end)
+            int end = i;
+            int width = 0;
+            while (end < n && !isSpace(text.charAt(end)) && text.charAt(end) != '\n') {
+                int cp = Character.codePointAt(text, end);
+                width += displayWidth(cp);
+                end += Character.charCount(cp);
+            }
+
+            if (!lineEmpty) {
+                if (col + 1 + width <= columns) {
+                    out.append(' ');
+                    col++;
+                } else {
+                    col = newLine(indent, out);
+                    lineEmpty = true;
+                }
+            }
+
+            if (col + width <= columns) {
+                out.append(text, i, end);
+                col += width;
+            } else {
+                // Kata kepanjangan: potong paksa per karakter
+                int j = i;
+                while (j < end) {
+                    int cp = Character.codePointAt(text, j);
+                    int w = displayWidth(cp);
+                    if (col + w > columns && !lineEmpty) col = newLine(indent, out);
+                    out.appendCodePoint(cp);
+                    col += w;
+                    lineEmpty = false;
+                    j += Character.charCount(cp);
+                }
+            }
+            lineEmpty = false;
+            i = end;
+        }
+        return col;
+    }
+
+    private static int newLine(int indent, StringBuilder out) {
+        out.append('\n');
+        for (int k = 0; k < indent; k++) out.append(' ');
+        return indent;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    // Lebar tampilan di printer thermal (mengikuti aturan East Asian Width secara kasar)
+    public static int displayWidth(int cp) {
+        if (cp < 0x300) return cp < 0x20 ? 0 : 1; // jalur cepat: ASCII & Latin
+        int type = Character.getType(cp);
+        if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK || type == Character.FORMAT) return 0;
+        if ((cp >= 0x1100 && cp <= 0x115F)
+                || (cp >= 0x2E80 && cp <= 0xA4CF && cp != 0x303F)
+                || (cp >= 0xAC00 && cp <= 0xD7A3)
+                || (cp >= 0xF900 && cp <= 0xFAFF)
+                || (cp >= 0xFE30 && cp <= 0xFE4F)
+                || (cp >= 0xFF00 && cp <= 0xFF60)
+                || (cp >= 0xFFE0 && cp <= 0xFFE6)
+                || (cp >= 0x1F300 && cp <= 0x1F64F)
+                || (cp >= 0x1F900 && cp <= 0x1F9FF)
+                || (cp >= 0x20000 && cp <= 0x3FFFD)) {
+            return 2;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,115 @@
+package com.azzahra.sync;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Log aktivitas untuk tab LOG, dibagi semua komponen di proses (service notifikasi, activity, printer).
+// Ring buffer ukuran tetap tanpa lock: penulis cukup getAndIncrement + satu store, baris tertua tertimpa.
+// Waktu disimpan sebagai epoch ms dan baru diformat saat baris benar-benar ditampilkan.
+// UI berlangganan lewat Listener yang dipanggil paling banyak sekali per frame (Choreographer).
+// Riwayat tetap ada walau activity di-pause / dibuat ulang.
+public final class LogStore {
+    public static final int CAPACITY = 512; // pangkat 2
+    private static final LogStore INSTANCE = new LogStore(CAPACITY);
+
+    public static final class Entry {
+        final long seq;
+        public final long timeMs;
+        public final String message;
+
+        Entry(long seq, long timeMs, String message) {
+            this.seq = seq;
+            this.timeMs = timeMs;
+            this.message = message;
+        }
+
+        // "[HH:mm:ss] pesan" dengan zona waktu perangkat, tanpa SimpleDateFormat
+        @Override
+        public String toString() {
+            long local = timeMs + TimeZone.getDefault().getOffset(timeMs);
+            int secOfDay = (int) Math.floorMod(local / 1000, 86400L);
+            StringBuilder sb = new StringBuilder(message.length() + 11).append('[');
+            two(sb, secOfDay / 3600).append(':');
+            two(sb, secOfDay / 60 % 60).append(':');
+            two(sb, secOfDay % 60).append("] ");
+            return sb.append(message).toString();
+        }
+
+        private static StringBuilder two(StringBuilder sb, int v) {
+            return sb.append((char) ('0' + v / 10)).append((char) ('0' + v % 10));
+        }
+    }
+
+    // Dipanggil di main thread, sekali per frame kalau ada baris baru
+    public interface Listener {
+        void onLogsAppended();
+    }
+
+    private final AtomicReferenceArray<Entry> ring;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();       // seq baris berikutnya
+    private final AtomicLong clearedBefore = new AtomicLong(); // baris dengan seq < ini tidak ditampilkan
+    private final AtomicBoolean frameScheduled = new AtomicBoolean();
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private volatile Listener listener;
+
+    private final Choreographer.FrameCallback frame = frameTimeNanos -> {
+        frameScheduled.set(false);
+        Listener l = listener;
+        if (l != null) l.onLogsAppended();
+    };
+    private final Runnable scheduleFrame = () -> Choreographer.getInstance().postFrameCallback(frame);
+
+    private LogStore(int capacity) {
+        ring = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    public static LogStore get() {
+        return INSTANCE;
+    }
+
+    // Aman dari thread mana pun
+    public void add(String message) {
+        long seq = next.getAndIncrement();
+        ring.set((int) (seq & mask), new Entry(seq, System.currentTimeMillis(), message));
+        if (listener != null && frameScheduled.compareAndSet(false, true)) {
+            if (Looper.myLooper() == Looper.getMainLooper()) scheduleFrame.run();
+            else main.post(scheduleFrame);
+        }
+    }
+
+    public void clear() {
+        clearedBefore.set(next.get());
+        Listener l = listener;
+        if (l != null && frameScheduled.compareAndSet(false, true)) main.post(scheduleFrame);
+    }
+
+    // Satu pelanggan (tab LOG). null = berhenti.
+    public void setListener(Listener l) {
+        listener = l;
+        if (l != null && frameScheduled.compareAndSet(false, true)) main.post(scheduleFrame);
+    }
+
+    // Isi out dengan paling banyak limit baris terbaru, yang terbaru di depan.
+    // Slot yang sedang ditulis / sudah tertimpa dilewati.
+    public void snapshot(List<Entry> out, int limit) {
+        out.clear();
+        long end = next.get();
+        long start = Math.max(Math.max(0, end - ring.length()), clearedBefore.get());
+        for (long seq = end - 1; seq >= start && out.size() < limit; seq--) {
+            Entry e = ring.get((int) (seq & mask));
+            if (e != null && e.seq == seq) out.add(e);
+        }
+    }
+
+    public long getTotalCount() {
+        return next.get();
+    }
+}
@@ -14,8 +14,6 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 public class LoginActivity extends AppCompatActivity {
 
@@ -23,7 +21,7 @@ public class LoginActivity extends AppCompatActivity {
     private Button btnLogin;
     private ProgressBar loading;
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
+    private SessionRepository session;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -32,7 +30,7 @@ public class LoginActivity extends AppCompatActivity {
 
         try {
             mAuth = FirebaseAuth.getInstance();
-            db = FirebaseFirestore.getInstance();
+            session = SessionRepository.get(this);
         } catch (Exception e) {
             Toast.makeText(this, "Firebase Initialization Error", Toast.LENGTH_LONG).show();
         }
@@ -45,7 +43,7 @@ public class LoginActivity extends AppCompatActivity {
         // Cek login otomatis dengan delay agar stabil
         new Handler(Looper.getMainLooper()).postDelayed(() -> {
             if (mAuth != null && mAuth.getCurrentUser() != null) {
-                checkUserRoleAndNavigate(mAuth.getCurrentUser().getUid());
+                checkUserRoleAndNavigate();
             }
         }, 500);
 
@@ -70,7 +68,7 @@ public class LoginActivity extends AppCompatActivity {
                     if (task.isSuccessful()) {
                         FirebaseUser user = mAuth.getCurrentUser();
                         if (user != null) {
-                            checkUserRoleAndNavigate(user.getUid());
+                            checkUserRoleAndNavigate();
                         }
                     } else {
                         if (loading != null) loading.setVisibility(View.GONE);
@@ -81,38 +79,33 @@ public class LoginActivity extends AppCompatActivity {
                 });
     }
 
-    private void checkUserRoleAndNavigate(String uid) {
+    // Role dari SessionRepository: langsung kalau sudah tersimpan, kalau belum tunggu snapshot pertama
+    private void checkUserRoleAndNavigate() {
         if (loading != null) loading.setVisibility(View.VISIBLE);
         if (btnLogin != null) btnLogin.setEnabled(false);
 
-        db.collection("users").document(uid).get()
-                .addOnCompleteListener(task -> {
-                    if (loading != null) loading.setVisibility(View.GONE);
-                    if (btnLogin != null) btnLogin.setEnabled(true);
-
-                    if (task.isSuccessful() && task.getResult() != null) {
-                        DocumentSnapshot doc = task.getResult();
-                        if (doc.exists()) {
-                            String role = doc.getString("role");
-                            // IZINKAN ROLE OWNER ATAU ADMIN
-                            if ("owner".equalsIgnoreCase(role) || "admin".equalsIgnoreCase(role)) {
-                                Intent intent = new Intent(LoginActivity.this, MainActivity.class);
-                                intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-                                startActivity(intent);
-                                finish();
-                            } else {
-                                mAuth.signOut();
-                                Toast.makeText(this, "Akses Ditolak: Hanya Owner / Admin yang diizinkan masuk", Toast.LENGTH_LONG).show();
-                            }
-                        } else {
-                            mAuth.signOut();
-                            Toast.makeText(this, "Data User tidak ditemukan", Toast.LENGTH_LONG).show();
-                        }
-                    } else {
-                        mAuth.signOut();
-                        String error = task.getException() != null ? task.getException().getMessage() : "Gagal cek Role";
-                        Toast.makeText(this, "Error Database: " + error, Toast.LENGTH_LONG).show();
-                    }
-                });
+        session.load((role, error) -> {
+            if (loading != null) loading.setVisibility(View.GONE);
+            if (btnLogin != null) btnLogin.setEnabled(true);
+
+            if (error == null && role != null) {
+                // IZINKAN ROLE OWNER ATAU ADMIN
+                if (SessionRepository.ROLE_OWNER.equalsIgnoreCase(role) || SessionRepository.ROLE_ADMIN.equalsIgnoreCase(role)) {
+                    Intent intent = new Intent(LoginActivity.this, MainActivity.class);
+                    intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+                    startActivity(intent);
+                    finish();
+                } else {
+                    session.signOut();
+                    Toast.makeText(this, "Akses Ditolak: Hanya Owner / Admin yang diizinkan masuk", Toast.LENGTH_LONG).show();
+                }
+            } else if (error == null) {
+                session.signOut();
+                Toast.makeText(this, "Data User tidak ditemukan", Toast.LENGTH_LONG).show();
+            } else {
+                session.signOut();
+                Toast.makeText(this, "Error Database: " + error.getMessage(), Toast.LENGTH_LONG).show();
+            }
+        });
     }
 }
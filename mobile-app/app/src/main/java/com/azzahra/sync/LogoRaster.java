@@ -0,0 +1,130 @@
+package com.azzahra.sync;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.util.Log;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+// Logo toko untuk header label. Gambar di-dither & dikonversi ke perintah raster (GS v 0)
+// SEKALI per lebar printer, lalu disimpan di memori dan di cacheDir agar label berikutnya
+// tinggal menyalin byte-nya saja.
+public class LogoRaster {
+    private static final String TAG = "LogoRaster";
+    public static final String LOGO_FILE = "label_logo.png";
+
+    private static final Map<String, byte[]> memoryCache = new HashMap<>();
+
+    public static synchronized byte[] get(Context context, int widthDots) {
+        File source = new File(context.getFilesDir(), LOGO_FILE);
+        if (!source.exists()) return null;
+
+        String key = widthDots + "_" + source.lastModified();
+        byte[] raster = memoryCache.get(key);
+        if (raster != null) return raster;
+
+        File disk = new File(context.getCacheDir(), "logo_" + key + ".bin");
+        try {
+            if (disk.exists()) {
+                raster = readFully(disk);
+            } else {
+                Bitmap bmp = BitmapFactory.decodeFile(source.getAbsolutePath());
+                if (bmp == null) return null;
+                raster = rasterize(bmp, widthDots);
+                bmp.recycle();
+                try (OutputStream out = new FileOutputStream(disk)) {
+                    out.write(raster);
+                }
+            }
+            memoryCache.put(key, raster);
+            return raster;
+        } catch (IOException e) {
+            Log.e(TAG, "Gagal memuat logo: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Simpan logo baru (PNG/JPG). Cache lama otomatis tidak terpakai karena key ikut lastModified.
+    public static synchronized void setLogo(Context context, byte[] image) throws IOException {
+        try (OutputStream out = new FileOutputStream(new File(context.getFilesDir(), LOGO_FILE))) {
+            out.write(image);
+        }
+        memoryCache.clear();
+        File[] old = context.getCacheDir().listFiles();
+        if (old != null) {
+            for (File f : old) if (f.getName().startsWith("logo_")) f.delete();
+        }
+    }
+
+    public static synchronized void clearLogo(Context context) {
+        new File(context.getFilesDir(), LOGO_FILE).delete();
+        memoryCache.clear();
+    }
+
+    static byte[] rasterize(Bitmap src, int maxWidth) {
+        Bitmap bmp = src;
+        if (src.getWidth() > maxWidth) {
+            int h = Math.max(1, src.getHeight() * maxWidth / src.getWidth());
+            bmp = Bitmap.createScaledBitmap(src, maxWidth, h, true);
+        }
+        int w = bmp.getWidth();
+        int h = bmp.getHeight();
+        int[] pixels = new int[w * h];
+        bmp.getPixels(pixels, 0, w, 0, 0, w, h);
+        if (bmp != src) bmp.recycle();
+
+        // Luminance 0..255; transparan dianggap putih
+        int[] lum = new int[w * h];
+        for (int i = 0; i < pixels.length; i++) {
+            int p = pixels[i];
+            int a = Color.alpha(p);
+            int y = (Color.red(p) * 299 + Color.green(p) * 587 + Color.blue(p) * 114) / 1000;
+            lum[i] = (y * a + 255 * (255 - a)) / 255;
+        }
+
+        int widthBytes = (w + 7) / 8;
+        byte[] out = new byte[8 + widthBytes * h];
+        out[0] = 0x1D; out[1] = 0x76; out[2] = 0x30; out[3] = 0x00;
+        out[4] = (byte) (widthBytes & 0xFF); out[5] = (byte) (widthBytes >> 8);
+        out[6] = (byte) (h & 0xFF); out[7] = (byte) (h >> 8);
+
+        // Floyd-Steinberg dithering
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int i = y * w + x;
+                int old = lum[i];
+                int black = old < 128 ? 1 : 0;
+                int err = old - (black == 1 ? 0 : 255);
+                if (black == 1) out[8 + y * widthBytes + (x >> 3)] |= (byte) (0x80 >> (x & 7));
+                if (x + 1 < w) lum[i + 1] += err * 7 / 16;
+                if (y + 1 < h) {
+                    if (x > 0) lum[i + w - 1] += err * 3 / 16;
+                    lum[i + w] += err * 5 / 16;
+                    if (x + 1 < w) lum[i + w + 1] += err / 16;
+                }
+            }
+        }
+        return out;
+    }
+
+    private static byte[] readFully(File f) throws IOException {
+        byte[] data = new byte[(int) f.length()];
+        try (InputStream in = new FileInputStream(f)) {
+            int off = 0;
+            while (off < data.length) {
+                int n = in.read(data, off, data.length - off);
+                if (n < 0) throw new IOException("File cache logo terpotong");
+                off += n;
+            }
+        }
+        return data;
+    }
+}
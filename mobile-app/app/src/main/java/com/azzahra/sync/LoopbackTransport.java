@@ -0,0 +1,192 @@
+package com.azzahra.sync;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Printer palsu di memori: merekam semua byte yang dikirim, bisa mensimulasikan
+// latency per flush, bandwidth link (mis. SPP murah ~ 11.5 KB/s) dan buffer terima printer
+// (byte langsung diterima selama buffer belum penuh, lalu tertahan sesuai kecepatan cetak).
+// Membalas DLE EOT n dengan status "online" supaya probe koneksi tidak menunggu timeout.
+// Dipakai untuk benchmark jalur cetak tanpa perangkat asli.
+public class LoopbackTransport implements PrinterTransport {
+    public static final byte STATUS_ONLINE = 0x12;
+
+    private final long latencyNanos;
+    private final long bytesPerSecond; // 0 = tanpa batas
+    private final int bufferBytes;
+    private final boolean record;
+    private double bufferLevel; // isi buffer printer yang belum tercetak
+    private long lastDrainNanos;
+
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+    private long receivedCount;
+    private long flushCount;
+    private volatile boolean open;
+
+    // Balasan status yang belum dibaca (antrian byte kecil)
+    private final byte[] replies = new byte[64];
+    private int replyHead;
+    private int replyCount;
+
+    private final OutputStream out = new LoopbackOutput();
+    private final InputStream in = new LoopbackInput();
+
+    public LoopbackTransport() {
+        this(0, 0, 0, true);
+    }
+
+    // record=false: hanya menghitung byte (benchmark ratusan label tanpa menumpuk memori)
+    public LoopbackTransport(long latencyMs, long bytesPerSecond, int bufferBytes, boolean record) {
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMs);
+        this.bytesPerSecond = bytesPerSecond;
+        this.bufferBytes = bufferBytes;
+        this.record = record;
+    }
+
+    @Override
+    public void open() throws IOException {
+        open = true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        if (!open) throw new IOException("Loopback belum dibuka");
+        return out;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (!open) throw new IOException("Loopback belum dibuka");
+        return in;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            open = false;
+            notifyAll();
+        }
+    }
+
+    public synchronized byte[] toByteArray() {
+        return received.toByteArray();
+    }
+
+    public synchronized long getBytesReceived() {
+        return receivedCount;
+    }
+
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    public synchronized void reset() {
+        received.reset();
+        receivedCount = 0;
+        bufferLevel = 0;
+        flushCount = 0;
+        replyCount = 0;
+    }
+
+    private synchronized void reply(byte b) {
+        if (replyCount == replies.length) return;
+        replies[(replyHead + replyCount) % replies.length] = b;
+        replyCount++;
+        notifyAll();
+    }
+
+    // Berapa lama penulis harus tertahan supaya len byte muat di buffer printer
+    private synchronized long admit(int len) {
+        long now = System.nanoTime();
+        if (lastDrainNanos != 0) bufferLevel = Math.max(0, bufferLevel - (now - lastDrainNanos) * bytesPerSecond / 1e9);
+        lastDrainNanos = now;
+        bufferLevel += len;
+        double overflow = bufferLevel - bufferBytes;
+        return overflow <= 0 ? 0 : (long) (overflow * 1e9 / bytesPerSecond);
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos <= 0) return;
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class LoopbackOutput extends OutputStream {
+        private int dleState; // 0 = biasa, 1 = setelah DLE, 2 = setelah DLE EOT
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!open) throw new IOException("Loopback ditutup");
+            if (bytesPerSecond > 0) sleepNanos(admit(len));
+            synchronized (LoopbackTransport.this) {
+                if (record) received.write(b, off, len);
+                receivedCount += len;
+            }
+            for (int i = off; i < off + len; i++) {
+                int c = b[i] & 0xFF;
+                if (dleState == 2) {
+                    reply(STATUS_ONLINE);
+                    dleState = 0;
+                } else if (c == 0x10) {
+                    dleState = 1;
+                } else {
+                    dleState = dleState == 1 && c == 0x04 ? 2 : 0;
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!open) throw new IOException("Loopback ditutup");
+            sleepNanos(latencyNanos);
+            synchronized (LoopbackTransport.this) {
+                flushCount++;
+            }
+        }
+    }
+
+    private class LoopbackInput extends InputStream {
+        @Override
+        public int available() {
+            synchronized (LoopbackTransport.this) {
+                return replyCount;
+            }
+        }
+
+        // Blocking seperti socket asli: menunggu balasan status, -1 setelah ditutup
+        @Override
+        public int read() throws IOException {
+            synchronized (LoopbackTransport.this) {
+                while (replyCount == 0) {
+                    if (!open) return -1;
+                    try {
+                        LoopbackTransport.this.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Dibatalkan");
+                    }
+                }
+                byte b = replies[replyHead];
+                replyHead = (replyHead + 1) % replies.length;
+                replyCount--;
+                return b & 0xFF;
+            }
+        }
+    }
+}
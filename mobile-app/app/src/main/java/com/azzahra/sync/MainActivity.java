@@ -5,11 +5,9 @@ import android.annotation.SuppressLint;
 import android.app.AlertDialog;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
-import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
@@ -22,8 +20,8 @@ import android.os.PowerManager;
 import android.provider.Settings;
 import android.service.notification.NotificationListenerService;
 import android.text.Editable;
+import android.text.InputType;
 import android.text.TextWatcher;
-import android.util.Base64;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -46,11 +44,12 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.app.NotificationManagerCompat;
 
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import org.json.JSONObject;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -59,40 +58,42 @@ import java.util.Set;
 
 public class MainActivity extends AppCompatActivity {
 
-    private TextView statusText, txtPrinterStatus;
+
+    private TextView statusText, txtPrinterStatus, txtPoolStatus, txtMetrics;
+    private boolean permissionsOk;
     private ListView appListView, logListView, printerListView;
     private EditText searchApps;
     private View statusIndicator, indicatorAppNotif, indicatorListener, indicatorBattery;
-    private Button btnGrantNotif, btnBatteryIgnore, btnScanPrinter, btnTestPrint, btnLogout, btnSimulatePwa, btnGrantAppNotif, btnClearLog, btnAutostart, btnTestNotif;
+    private Button btnGrantNotif, btnBatteryIgnore, btnScanPrinter, btnLanPrinter, btnTestPrint, btnLogout, btnSimulatePwa, btnBenchmark, btnGrantAppNotif, btnClearLog, btnAutostart, btnTestNotif;
     private SharedPreferences prefs;
     private Set<String> selectedPackages;
     private List<AppInfo> allAppInfos = new ArrayList<>();
-    private List<String> logEntries = new ArrayList<>();
-    private ArrayAdapter<String> logAdapter;
+    // Tampilan tab LOG: salinan baris terbaru dari LogStore, diisi ulang sekali per frame
+    private static final int LOG_VISIBLE_LINES = 200;
+    private final List<LogStore.Entry> logEntries = new ArrayList<>();
+    private ArrayAdapter<LogStore.Entry> logAdapter;
     private AppAdapter appAdapter;
     private TabHost tabHost;
 
     private BluetoothPrinterManager printerManager;
+    private PrinterPool printerPool;
     private List<BluetoothDevice> printerDevices = new ArrayList<>();
     private ArrayAdapter<String> printerAdapter;
     private PrintBridge printBridge;
-
-    private final BroadcastReceiver logReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            String newLog = intent.getStringExtra("log_message");
-            if (newLog != null) {
-                runOnUiThread(() -> {
-                    logEntries.add(0, newLog);
-                    if (logEntries.size() > 100) logEntries.remove(logEntries.size() - 1);
-                    logAdapter.notifyDataSetChanged();
-                });
-            }
-        }
+    // Sesi cetak massal yang belum selesai (main thread). Link baru tidak membatalkan sesi yang sedang jalan:
+    // semuanya antri di scheduler yang sama, label satuan (PRIORITY_SINGLE) tetap didahulukan.
+    private final List<BulkPrintSession> bulkSessions = new ArrayList<>();
+    private long intentReceivedNanos;
+    private static final int REQUEST_PICK_LOGO = 41;
+
+    private final LogStore.Listener logListener = () -> {
+        LogStore.get().snapshot(logEntries, LOG_VISIBLE_LINES);
+        if (logAdapter != null) logAdapter.notifyDataSetChanged();
     };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        intentReceivedNanos = System.nanoTime();
         super.onCreate(savedInstanceState);
         if (FirebaseAuth.getInstance().getCurrentUser() == null) {
             startActivity(new Intent(this, LoginActivity.class));
@@ -101,6 +102,8 @@ public class MainActivity extends AppCompatActivity {
         }
         setContentView(R.layout.activity_main);
         prefs = getSharedPreferences("AzzahraPrefs", MODE_PRIVATE);
+        // Outbox dibuka (baca jurnal dari disk) di background; UI hanya membaca jumlah antrian yang di-cache
+        DetectionOutbox.warmUp(this);
         initUI();
         initTabs();
         checkUserRole();
@@ -109,6 +112,7 @@ public class MainActivity extends AppCompatActivity {
 
     @Override
     protected void onNewIntent(Intent intent) {
+        intentReceivedNanos = System.nanoTime();
         super.onNewIntent(intent);
         setIntent(intent);
         handleIntent(intent);
@@ -118,55 +122,197 @@ public class MainActivity extends AppCompatActivity {
         if (intent != null && intent.getData() != null) {
             Uri uri = intent.getData();
             if ("azzahra-print".equals(uri.getScheme())) {
+                // Link ini bisa dibuka halaman web mana pun: hanya parameter untuk job ini yang dibaca.
+                // Template, logo, kertas, codepage & jendela duplikat hanya diubah dari Pengaturan Label.
                 String rawData = uri.getQueryParameter("data");
-                if (rawData != null) processPrintRequest(rawData);
+                // ?reprint=1 paksa cetak ulang label yang baru saja dicetak
+                boolean reprint = "1".equals(uri.getQueryParameter("reprint")) || "true".equals(uri.getQueryParameter("reprint"));
+                if (rawData != null) processPrintRequest(rawData, intentReceivedNanos, reprint);
             }
         }
     }
 
-    private void processPrintRequest(String rawData) {
-        String decoded;
+    private void updateLabelTemplate(String source) {
         try {
-            byte[] bytes = Base64.decode(rawData, Base64.DEFAULT);
-            decoded = new String(bytes, "UTF-8");
+            if (source.trim().isEmpty()) printerPool.resetLabelTemplate();
+            else printerPool.setLabelTemplate(source);
+            Toast.makeText(this, "✅ Template label diperbarui", Toast.LENGTH_SHORT).show();
         } catch (Exception e) {
-            decoded = rawData;
+            Toast.makeText(this, "Template label tidak valid: " + e.getMessage(), Toast.LENGTH_SHORT).show();
         }
+    }
 
-        final String finalContent = decoded;
+    private void updateDedupWindow(String seconds) {
+        try {
+            long value = Long.parseLong(seconds.trim());
+            if (value < 0) throw new NumberFormatException();
+            PrintHistory.get(this).setWindowMs(value * 1000L);
+        } catch (NumberFormatException e) {
+            Toast.makeText(this, "Jendela duplikat tidak valid: " + seconds, Toast.LENGTH_SHORT).show();
+        }
+    }
 
-        if (!printerManager.isConnected()) {
+    private void updatePaperWidth(String paper) {
+        if ("80".equals(paper)) printerPool.setPaperWidthDots(BluetoothPrinterManager.WIDTH_80MM_DOTS);
+        else if ("58".equals(paper)) printerPool.setPaperWidthDots(BluetoothPrinterManager.WIDTH_58MM_DOTS);
+        else Toast.makeText(this, "Lebar kertas tidak dikenal: " + paper, Toast.LENGTH_SHORT).show();
+    }
+
+    // Logo header label dari galeri; dibaca & di-raster di background
+    private void updateLabelLogo(Uri image) {
+        new Thread(() -> {
+            try (InputStream in = getContentResolver().openInputStream(image)) {
+                if (in == null) throw new IOException("Gambar tidak bisa dibuka");
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] chunk = new byte[8192];
+                for (int n; (n = in.read(chunk)) > 0; ) bytes.write(chunk, 0, n);
+                LogoRaster.setLogo(this, bytes.toByteArray());
+                runOnUiThread(() -> Toast.makeText(this, "✅ Logo label diperbarui", Toast.LENGTH_SHORT).show());
+            } catch (Exception e) {
+                runOnUiThread(() -> Toast.makeText(this, "Logo tidak valid: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+            }
+        }).start();
+    }
+
+    // Pengaturan label yang tersimpan permanen; sengaja tidak bisa diubah lewat link azzahra-print://
+    private void showLabelSettings() {
+        String[] items = {
+                "Lebar kertas: " + (printerManager.getPaperWidthDots() == BluetoothPrinterManager.WIDTH_80MM_DOTS ? "80mm" : "58mm"),
+                "Codepage: " + printerManager.getCodepage().name(),
+                "Jendela duplikat: " + (PrintHistory.get(this).getWindowMs() / 1000) + " dtk",
+                "Template label",
+                "Logo label"
+        };
+        new AlertDialog.Builder(this).setTitle("Pengaturan Label").setItems(items, (d, which) -> {
+            switch (which) {
+                case 0:
+                    String[] papers = {"58", "80"};
+                    new AlertDialog.Builder(this).setTitle("Lebar kertas (mm)").setItems(papers, (d2, w) -> updatePaperWidth(papers[w])).show();
+                    break;
+                case 1:
+                    PrinterCodepage[] pages = PrinterCodepage.values();
+                    String[] names = new String[pages.length];
+                    for (int i = 0; i < pages.length; i++) names[i] = pages[i].name();
+                    new AlertDialog.Builder(this).setTitle("Codepage printer").setItems(names, (d2, w) -> printerPool.setCodepage(pages[w])).show();
+                    break;
+                case 2:
+                    EditText seconds = new EditText(this);
+                    seconds.setInputType(InputType.TYPE_CLASS_NUMBER);
+                    seconds.setText(String.valueOf(PrintHistory.get(this).getWindowMs() / 1000));
+                    new AlertDialog.Builder(this).setTitle("Jendela duplikat (detik, 0 = mati)").setView(seconds)
+                            .setPositiveButton("Simpan", (d2, w) -> updateDedupWindow(seconds.getText().toString()))
+                            .setNegativeButton("Batal", null).show();
+                    break;
+                case 3:
+                    EditText source = new EditText(this);
+                    source.setMinLines(6);
+                    source.setTextSize(11);
+                    source.setText(printerManager.getLabelTemplateSource());
+                    new AlertDialog.Builder(this).setTitle("Template label").setView(source)
+                            .setPositiveButton("Simpan", (d2, w) -> updateLabelTemplate(source.getText().toString()))
+                            .setNeutralButton("Bawaan", (d2, w) -> updateLabelTemplate(""))
+                            .setNegativeButton("Batal", null).show();
+                    break;
+                default:
+                    new AlertDialog.Builder(this).setTitle("Logo label").setItems(new String[]{"Pilih gambar", "Hapus logo"}, (d2, w) -> {
+                        if (w == 0) {
+                            Intent pick = new Intent(Intent.ACTION_GET_CONTENT).setType("image/*");
+                            startActivityForResult(Intent.createChooser(pick, "Pilih logo"), REQUEST_PICK_LOGO);
+                        } else {
+                            LogoRaster.clearLogo(this);
+                            Toast.makeText(this, "Logo label dihapus", Toast.LENGTH_SHORT).show();
+                        }
+                    }).show();
+                    break;
+            }
+        }).show();
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode == REQUEST_PICK_LOGO && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            updateLabelLogo(data.getData());
+        }
+    }
+
+    // Langsung antrikan: kalau printer belum siap, thread penulis yang menyambung dan
+    // mulai mengirim begitu link siap (tanpa sleep tetap di sini)
+    private void processPrintRequest(String rawData, long requestNanos, boolean reprint) {
+        if (!printerPool.isAnyConnected()) {
             Toast.makeText(this, "🔄 Menghubungkan Printer...", Toast.LENGTH_SHORT).show();
-            new Thread(() -> {
-                printerManager.autoConnect();
-                try { Thread.sleep(2000); } catch (InterruptedException ignored) {}
+            printerPool.autoConnectAll();
+        }
+        startPrintSession(rawData, requestNanos, reprint);
+    }
+
+    // Payload di-decode & dipecah per label secara streaming, progres tampil di tab PRINTER
+    private void startPrintSession(String rawData, long requestNanos, boolean reprint) {
+        BulkPrintSession[] self = new BulkPrintSession[1]; // listener dibuat sebelum sesinya ada
+        BulkPrintSession session = new BulkPrintSession(printerPool, new BulkPrintSession.ProgressListener() {
+            @Override public void onProgress(int printed, int total) {
+                runOnUiThread(() -> txtPrinterStatus.setText("🖨️ Label " + printed + "/" + (total < 0 ? "?" : String.valueOf(total))));
+            }
+            @Override public void onPaused(int printed, String reason) {
                 runOnUiThread(() -> {
-                    if (printerManager.isConnected()) executePrint(finalContent);
-                    else {
-                        Toast.makeText(this, "❌ Gagal menyambung. Hubungkan manual!", Toast.LENGTH_LONG).show();
-                        tabHost.setCurrentTab(1);
-                    }
+                    txtPrinterStatus.setText("⏸️ Berhenti di label " + printed + ": " + reason);
+                    Toast.makeText(MainActivity.this, "❌ Cetak berhenti: " + reason, Toast.LENGTH_LONG).show();
                 });
-            }).start();
-        } else {
-            executePrint(finalContent);
+            }
+            @Override public void onFinished(int printed) {
+                // Sesi milik listener ini, bisa jalan berdampingan dengan sesi dari link lain
+                int skipped = self[0].getSuppressedCount();
+                runOnUiThread(() -> {
+                    bulkSessions.remove(self[0]);
+                    txtPrinterStatus.setText("✅ Selesai " + printed + " label"
+                            + (skipped > 0 ? " (" + skipped + " duplikat dilewati)" : ""));
+                });
+            }
+        });
+        self[0] = session;
+        session.setPrintHistory(PrintHistory.get(this), reprint);
+        session.setSpool(PrintSpool.get(this));
+        bulkSessions.add(session);
+        session.start(rawData, requestNanos);
+
+        Toast.makeText(this, "🖨️ Mencetak Label...", Toast.LENGTH_SHORT).show();
+        // SILENT MODE: langsung kembali ke browser, cetak jalan di background
+        moveTaskToBack(true);
+    }
+
+    // Lanjutkan cetak massal yang terhenti karena printer putus
+    private void resumeBulkSessions() {
+        for (BulkPrintSession s : bulkSessions) {
+            if (s.isPaused()) s.resume();
         }
     }
 
     private void executePrint(String content) {
         try {
             if (content.trim().startsWith("{")) printBridge.printLabel(content);
-            else printerManager.print(content);
+            else {
+                // Payload berisi banyak label (bulk) mengalah ke label satuan di antrian
+                int priority = content.contains("potong disini") ? PrintJob.PRIORITY_BULK : PrintJob.PRIORITY_SINGLE;
+                printerPool.submit(content, priority, printFailureToast());
+            }
             
             Toast.makeText(this, "🖨️ Mencetak Label...", Toast.LENGTH_SHORT).show();
             
-            // SILENT MODE: Sembunyikan aplikasi setelah 1 detik
-            new android.os.Handler().postDelayed(() -> moveTaskToBack(true), 1500);
+            // SILENT MODE: langsung sembunyikan aplikasi
+            moveTaskToBack(true);
         } catch (Exception e) {
             Toast.makeText(this, "Gagal: " + e.getMessage(), Toast.LENGTH_SHORT).show();
         }
     }
 
+    private PrintJob.Listener printFailureToast() {
+        return job -> {
+            if (job.getState() == PrintJob.State.FAILED) {
+                runOnUiThread(() -> Toast.makeText(this, "Gagal: " + job.getError(), Toast.LENGTH_SHORT).show());
+            }
+        };
+    }
+
     @SuppressLint("SetJavaScriptEnabled")
     private void initUI() {
         selectedPackages = new HashSet<>(prefs.getStringSet("selected_packages", new HashSet<>()));
@@ -186,19 +332,23 @@ public class MainActivity extends AppCompatActivity {
         btnBatteryIgnore = findViewById(R.id.btnBatteryIgnore);
         btnClearLog = findViewById(R.id.btnClearLog);
         btnClearLog.setOnClickListener(v -> {
-            logEntries.clear();
+            LogStore.get().clear();
             addLogEntry("🗑️ Log Cleared");
             addLogEntry("📱 User: " + (FirebaseAuth.getInstance().getCurrentUser() != null ? FirebaseAuth.getInstance().getCurrentUser().getEmail() : "NULL"));
             checkPermissions();
         });
         btnLogout = findViewById(R.id.btnLogout);
         btnSimulatePwa = findViewById(R.id.btnSimulatePwa);
+        btnBenchmark = findViewById(R.id.btnBenchmark);
         txtPrinterStatus = findViewById(R.id.txtPrinterStatus);
         btnScanPrinter = findViewById(R.id.btnScanPrinter);
+        btnLanPrinter = findViewById(R.id.btnLanPrinter);
         btnTestPrint = findViewById(R.id.btnTestPrint);
         printerListView = findViewById(R.id.printerList);
+        txtPoolStatus = findViewById(R.id.txtPoolStatus);
+        txtMetrics = findViewById(R.id.txtMetrics);
 
-        logAdapter = new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1, logEntries) {
+        logAdapter = new ArrayAdapter<LogStore.Entry>(this, android.R.layout.simple_list_item_1, logEntries) {
             @NonNull @Override public View getView(int position, @Nullable View v, @NonNull ViewGroup parent) {
                 TextView tv = (TextView) super.getView(position, v, parent);
                 tv.setTextSize(11); tv.setPadding(8, 8, 8, 8); return tv;
@@ -210,26 +360,68 @@ public class MainActivity extends AppCompatActivity {
         addLogEntry("📱 App Started - User: " + (FirebaseAuth.getInstance().getCurrentUser() != null ? FirebaseAuth.getInstance().getCurrentUser().getEmail() : "NULL"));
         addLogEntry("📋 Selected Apps: " + selectedPackages.size() + " apps monitored");
         logListView.setOnItemClickListener((p, v, pos, id) -> {
-            new AlertDialog.Builder(this).setTitle("Log Detail").setMessage(logEntries.get(pos)).setPositiveButton("OK", null).show();
+            new AlertDialog.Builder(this).setTitle("Log Detail").setMessage(logEntries.get(pos).toString()).setPositiveButton("OK", null).show();
         });
 
         printerAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, new ArrayList<>());
         printerListView.setAdapter(printerAdapter);
 
-        printerManager = new BluetoothPrinterManager(this);
-        printBridge = new PrintBridge(this, printerManager);
+        // Satu instance per proses: koneksi tetap hangat walau activity dibuat ulang
+        printerManager = PrinterHub.get(this).getPrimary();
+        printerPool = PrinterHub.get(this).getPool();
+        printBridge = new PrintBridge(this, printerPool);
+        printerPool.setListener(status -> runOnUiThread(() -> {
+            refreshPoolStatus();
+            if (status.contains("Terhubung")) {
+                resumeBulkSessions();
+                PrinterHub.get(this).resumeSpool();
+            }
+        }));
         
-        printerManager.setListener(status -> runOnUiThread(() -> {
+        BluetoothPrinterManager.PrinterStatusListener statusListener = status -> runOnUiThread(() -> {
             txtPrinterStatus.setText(status);
             if (status.contains("Terhubung")) {
                 txtPrinterStatus.setTextColor(Color.parseColor("#4CAF50"));
                 btnTestPrint.setEnabled(true);
+                resumeBulkSessions();
+                PrinterHub.get(this).resumeSpool();
             } else {
                 txtPrinterStatus.setTextColor(Color.parseColor("#D32F2F"));
             }
-        }));
+        });
+        printerManager.setListener(statusListener);
+        // Printer bisa sudah tersambung dari sebelum activity ini dibuat
+        if (printerManager.isConnected()) statusListener.onStatusChanged("Terhubung ✅");
+
+        printerPool.autoConnectAll();
+        // Label yang tertinggal saat aplikasi terakhir dibunuh
+        PrinterHub.get(this).resumeSpool();
+
+        // Tekan lama status layanan: hit-rate parser per bank & antrian upload
+        statusText.setOnLongClickListener(v -> {
+            new AlertDialog.Builder(this).setTitle("Statistik Deteksi").setMessage(
+                    BankParserRegistry.get(this).describe() + "\n\n" +
+                    "Antri upload: " + DetectionOutbox.peekPendingCount() + "\n" +
+                    "Notif diproses / ditolak: " + NotificationService.acceptedCount.get() + " / " + NotificationService.rejectedCount.get() + "\n" +
+                    "Dedup       : " + NotificationService.processedHistory.describe()
+            ).setPositiveButton("OK", null).show();
+            return true;
+        });
 
-        printerManager.autoConnect();
+        // Tekan lama status printer untuk lihat statistik throughput
+        txtPrinterStatus.setOnLongClickListener(v -> {
+            new AlertDialog.Builder(this).setTitle("Statistik Printer").setMessage(
+                    "Total byte : " + printerManager.getBytesWritten() + "\n" +
+                    "Flush      : " + printerManager.getFlushCount() + "\n" +
+                    "Byte/flush : " + printerManager.getBytesPerFlush() + "\n" +
+                    "Byte/detik : " + printerManager.getBytesPerSecond() + "\n" +
+                    "Konek (ms) : " + printerManager.getLastConnectLatencyMs() + "\n" +
+                    "Status     : " + printerManager.getPrinterStatus().describe() + "\n" +
+                    "Link->byte (ms): " + printerManager.getLastLinkToFirstByteMs() + "\n" +
+                    "Duplikat dibuang: " + PrintHistory.get(this).getSuppressedCount()
+            ).setPositiveButton("OK", null).show();
+            return true;
+        });
 
         btnGrantAppNotif.setOnClickListener(v -> {
             Intent intent = new Intent();
@@ -261,12 +453,14 @@ public class MainActivity extends AppCompatActivity {
         btnTestNotif.setOnClickListener(v -> sendTestNotification());
 
         btnLogout.setOnClickListener(v -> {
-            FirebaseAuth.getInstance().signOut();
+            SessionRepository.get(this).signOut();
             startActivity(new Intent(this, LoginActivity.class));
             finish();
         });
 
         btnScanPrinter.setOnClickListener(v -> scanPrinters());
+        btnLanPrinter.setOnClickListener(v -> showLanPrinterDialog());
+        findViewById(R.id.btnLabelSettings).setOnClickListener(v -> showLabelSettings());
         printerListView.setOnItemClickListener((p, v, pos, id) -> {
             BluetoothDevice device = printerDevices.get(pos);
             new Thread(() -> {
@@ -274,9 +468,57 @@ public class MainActivity extends AppCompatActivity {
                 catch (Exception e) { runOnUiThread(() -> Toast.makeText(this, "Gagal: " + e.getMessage(), Toast.LENGTH_SHORT).show()); }
             }).start();
         });
+        // Tekan lama: tambah/hapus printer dari pool (cetak paralel saat event sale)
+        printerListView.setOnItemLongClickListener((p, v, pos, id) -> {
+            String address = printerDevices.get(pos).getAddress();
+            if (address.equals(printerManager.getAddress())) return true;
+            if (printerPool.contains(address)) {
+                printerPool.removePrinter(address);
+                Toast.makeText(this, "Printer dihapus dari pool", Toast.LENGTH_SHORT).show();
+            } else {
+                printerPool.addPrinter(address);
+                Toast.makeText(this, "Printer ditambahkan ke pool", Toast.LENGTH_SHORT).show();
+            }
+            refreshPoolStatus();
+            return true;
+        });
 
         btnTestPrint.setOnClickListener(v -> {
-            try { printerManager.print("TES PRINT AZZAHRA\nPrinter Bluetooth 58mm\nStatus: OK!\n\n\n"); } catch (Exception e) {}
+            printerManager.submit("TES PRINT AZZAHRA\nPrinter Bluetooth 58mm\nStatus: OK!\n\n\n", PrintJob.PRIORITY_SINGLE, printFailureToast());
+        });
+
+        // Ukur label/detik, byte/detik, alokasi & latency p99 tanpa printer asli
+        btnBenchmark.setOnClickListener(v -> {
+            btnBenchmark.setEnabled(false);
+            new PrintBenchmark(this).start(new PrintBenchmark.Listener() {
+                @Override
+                public void onProgress(String status) {
+                    runOnUiThread(() -> btnBenchmark.setText(status));
+                }
+
+                @Override
+                public void onFinished(String report) {
+                    runOnUiThread(() -> {
+                        btnBenchmark.setEnabled(true);
+                        btnBenchmark.setText("Benchmark Cetak (printer simulasi)");
+                        new AlertDialog.Builder(MainActivity.this).setTitle("Hasil Benchmark").setMessage(report).setPositiveButton("OK", null).show();
+                    });
+                }
+            });
+        });
+
+        // Tab METRICS: laporan latensi per tahap, disimpan ke file supaya bisa dibandingkan antar perangkat
+        findViewById(R.id.btnExportMetrics).setOnClickListener(v -> new Thread(() -> {
+            try {
+                java.io.File file = PipelineMetrics.get().export(this);
+                runOnUiThread(() -> Toast.makeText(this, "✅ Disimpan: " + file.getAbsolutePath(), Toast.LENGTH_LONG).show());
+            } catch (IOException e) {
+                runOnUiThread(() -> Toast.makeText(this, "Gagal: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+            }
+        }).start());
+        findViewById(R.id.btnResetMetrics).setOnClickListener(v -> {
+            PipelineMetrics.get().reset();
+            refreshMetrics();
         });
 
         btnSimulatePwa.setOnClickListener(v -> {
@@ -293,26 +535,55 @@ public class MainActivity extends AppCompatActivity {
         loadAppList();
     }
 
+    private final android.os.Handler poolStatusHandler = new android.os.Handler(android.os.Looper.getMainLooper());
+    private final Runnable poolStatusTicker = new Runnable() {
+        @Override public void run() {
+            refreshPoolStatus();
+            poolStatusHandler.postDelayed(this, 1000);
+        }
+    };
+
+    private void refreshPoolStatus() {
+        if (txtPoolStatus != null && printerPool != null) txtPoolStatus.setText(printerPool.describe());
+        refreshServiceStatus();
+        refreshMetrics();
+    }
+
+    // Hanya saat tab METRICS terbuka
+    private void refreshMetrics() {
+        if (txtMetrics == null || tabHost == null || !"Metrics".equals(tabHost.getCurrentTabTag())) return;
+        txtMetrics.setText(PipelineMetrics.get().describe());
+    }
+
+    // Status layanan + jumlah deteksi pembayaran yang belum sampai ke server
+    private void refreshServiceStatus() {
+        if (statusText == null) return;
+        int pending = DetectionOutbox.peekPendingCount();
+        String text = permissionsOk ? "ACTIVE" : "OFF (Cek Izin!)";
+        if (pending > 0) text += " · " + pending + " antri";
+        statusText.setText(text);
+        statusText.setTextColor(permissionsOk ? Color.parseColor("#4CAF50") : Color.parseColor("#D32F2F"));
+    }
+
     private void initTabs() {
         tabHost = findViewById(android.R.id.tabhost);
         tabHost.setup();
         tabHost.addTab(tabHost.newTabSpec("Sync").setIndicator("SYNC").setContent(R.id.tabSync));
         tabHost.addTab(tabHost.newTabSpec("Settings").setIndicator("PRINTER").setContent(R.id.tabPrinter));
+        tabHost.addTab(tabHost.newTabSpec("Metrics").setIndicator("METRICS").setContent(R.id.tabMetrics));
+        tabHost.setOnTabChangedListener(tag -> refreshMetrics());
     }
 
     private void checkUserRole() {
-        String uid = FirebaseAuth.getInstance().getUid();
-        if (uid == null) return;
-        FirebaseFirestore.getInstance().collection("users").document(uid).get()
-            .addOnSuccessListener(doc -> {
-                String role = doc.getString("role");
-                if ("admin".equalsIgnoreCase(role)) {
-                    tabHost.getTabWidget().getChildAt(0).setVisibility(View.GONE);
-                    tabHost.setCurrentTab(1); // Set tab PRINTER sebagai default
-                } else if ("owner".equalsIgnoreCase(role)) {
-                    triggerStartServices(); // Hanya jalankan background service penangkap notif jika "owner"
-                }
-            });
+        SessionRepository.get(this).load((role, error) -> {
+            if (isFinishing()) return;
+            if (SessionRepository.ROLE_ADMIN.equalsIgnoreCase(role)) {
+                tabHost.getTabWidget().getChildAt(0).setVisibility(View.GONE);
+                tabHost.setCurrentTab(1); // Set tab PRINTER sebagai default
+            } else if (SessionRepository.ROLE_OWNER.equalsIgnoreCase(role)) {
+                triggerStartServices(); // Hanya jalankan background service penangkap notif jika "owner"
+            }
+        });
     }
 
     private void scanPrinters() {
@@ -331,6 +602,24 @@ public class MainActivity extends AppCompatActivity {
         printerAdapter.notifyDataSetChanged();
     }
 
+    // Printer ESC/POS jaringan (meja packing): sambung lewat raw TCP, default port 9100
+    private void showLanPrinterDialog() {
+        EditText input = new EditText(this);
+        input.setHint("192.168.1.50 atau 192.168.1.50:9100");
+        String current = printerManager.getAddress();
+        if (current != null && current.startsWith(PrinterTransport.SCHEME_TCP)) input.setText(current.substring(PrinterTransport.SCHEME_TCP.length()));
+        new AlertDialog.Builder(this).setTitle("Printer LAN").setView(input)
+                .setPositiveButton("Sambung", (d, w) -> {
+                    String hostPort = input.getText().toString().trim();
+                    if (hostPort.isEmpty()) return;
+                    new Thread(() -> {
+                        try { printerManager.connect(PrinterTransport.SCHEME_TCP + hostPort); }
+                        catch (Exception e) { runOnUiThread(() -> Toast.makeText(this, "Gagal: " + e.getMessage(), Toast.LENGTH_SHORT).show()); }
+                    }).start();
+                })
+                .setNegativeButton("Batal", null).show();
+    }
+
     private void triggerStartServices() {
         try {
             NotificationListenerService.requestRebind(new ComponentName(this, NotificationService.class));
@@ -343,10 +632,7 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void addLogEntry(String message) {
-        String time = new java.text.SimpleDateFormat("HH:mm:ss", java.util.Locale.getDefault()).format(new java.util.Date());
-        logEntries.add(0, "[" + time + "] " + message);
-        if (logEntries.size() > 100) logEntries.remove(logEntries.size() - 1);
-        if (logAdapter != null) logAdapter.notifyDataSetChanged();
+        LogStore.get().add(message);
     }
 
     private void loadAppList() {
@@ -360,8 +646,14 @@ public class MainActivity extends AppCompatActivity {
         }).start();
     }
 
-    @Override protected void onResume() { super.onResume(); checkPermissions(); IntentFilter f = new IntentFilter("com.azzahra.sync.NEW_LOG"); if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) registerReceiver(logReceiver, f, Context.RECEIVER_EXPORTED); else registerReceiver(logReceiver, f); }
-    @Override protected void onPause() { super.onPause(); unregisterReceiver(logReceiver); }
+    @Override protected void onResume() { super.onResume(); checkPermissions(); LogStore.get().setListener(logListener); poolStatusHandler.post(poolStatusTicker); }
+    @Override protected void onDestroy() {
+        // Printer hidup lebih lama dari activity: lepas listener supaya activity tidak bocor
+        if (printerManager != null) printerManager.setListener(null);
+        if (printerPool != null) printerPool.setListener(null);
+        super.onDestroy();
+    }
+    @Override protected void onPause() { super.onPause(); LogStore.get().setListener(null); poolStatusHandler.removeCallbacks(poolStatusTicker); }
 
     private void checkPermissions() {
         boolean appNotifOk = NotificationManagerCompat.from(this).areNotificationsEnabled();
@@ -376,10 +668,8 @@ public class MainActivity extends AppCompatActivity {
         if (indicatorBattery != null) indicatorBattery.setBackgroundResource(batteryOk ? R.drawable.circle_green : R.drawable.circle_red);
         boolean allOk = appNotifOk && listenerOk && batteryOk;
         if (statusIndicator != null) statusIndicator.setBackgroundResource(allOk ? R.drawable.circle_green : R.drawable.circle_red);
-        if (statusText != null) {
-            statusText.setText(allOk ? "ACTIVE" : "OFF (Cek Izin!)");
-            statusText.setTextColor(allOk ? Color.parseColor("#4CAF50") : Color.parseColor("#D32F2F"));
-        }
+        permissionsOk = allOk;
+        refreshServiceStatus();
         // Log permission status for debugging
         addLogEntry("🔐 Notif:" + (appNotifOk?"✅":"❌") + " Listener:" + (listenerOk?"✅":"❌") + " Battery:" + (batteryOk?"✅":"❌"));
     }
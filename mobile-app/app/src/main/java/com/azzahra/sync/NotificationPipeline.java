@@ -0,0 +1,136 @@
+package com.azzahra.sync;
+
+import android.app.Notification;
+import android.os.Bundle;
+import android.service.notification.StatusBarNotification;
+import android.util.Log;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Jalur proses notifikasi bank di luar main thread.
+// Main thread (onNotificationPosted) hanya menyalin isi notifikasi ke Captured (capture),
+// sisanya (filter, parse, dedup, upload) jalan berurutan di SATU worker dengan antrian terbatas.
+// Kalau antrian penuh, notifikasi dibuang dan dihitung; listener overflow dipanggil maksimal sekali per jeda.
+public final class NotificationPipeline {
+    private static final String TAG = "NotifPipeline";
+    public static final int DEFAULT_CAPACITY = 256;
+    private static final long ALERT_INTERVAL_MS = 5000;
+
+    // Salinan isi notifikasi: aman dibaca dari thread mana pun, tidak menyimpan Bundle
+    public static final class Captured {
+        public final String packageName;
+        public final String title;
+        public final String text;
+        public final long postTime;
+        public final long capturedNanos; // System.nanoTime() saat disalin, awal metrik antrian
+
+        Captured(String packageName, String title, String text, long postTime) {
+            this.packageName = packageName;
+            this.title = title;
+            this.text = text;
+            this.postTime = postTime;
+            this.capturedNanos = System.nanoTime();
+        }
+
+        // Judul + isi, format sama dengan yang dipakai untuk dedup & rawText
+        public String fullContent() {
+            return (title + " " + text).trim();
+        }
+    }
+
+    public interface Stage {
+        void process(Captured notification);
+    }
+
+    public interface OverflowListener {
+        void onOverflow(long droppedTotal);
+    }
+
+    private final ThreadPoolExecutor worker;
+    private final Stage stage;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong lastAlertMs = new AtomicLong();
+    private volatile OverflowListener overflowListener;
+
+    public NotificationPipeline(int capacity, Stage stage) {
+        this.stage = stage;
+        // 1 thread: urutan notifikasi terjaga dan state dedup / role tidak perlu dikunci berlapis
+        worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity), r -> {
+            Thread t = new Thread(r, "NotifWorker");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public void setOverflowListener(OverflowListener listener) {
+        this.overflowListener = listener;
+    }
+
+    // Dipanggil di main thread: cukup baca extras, tidak ada I/O
+    public static Captured capture(StatusBarNotification sbn) {
+        Notification n = sbn.getNotification();
+        if (n == null || n.extras == null) return null;
+        Bundle e = n.extras;
+        String title = e.getString(Notification.EXTRA_TITLE, "");
+        CharSequence textChar = e.getCharSequence(Notification.EXTRA_TEXT);
+        String text = (textChar != null) ? textChar.toString() : "";
+        return new Captured(sbn.getPackageName(), title, text, sbn.getPostTime());
+    }
+
+    public boolean submit(StatusBarNotification sbn) {
+        Captured c = capture(sbn);
+        return c != null && submit(c);
+    }
+
+    public boolean submit(Captured notification) {
+        return execute(() -> stage.process(notification));
+    }
+
+    // Tugas lain yang harus berurutan dengan notifikasi (mis. scan ulang notifikasi aktif)
+    public boolean execute(Runnable task) {
+        if (worker.isShutdown()) return false;
+        try {
+            worker.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    Log.e(TAG, "Stage gagal", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (!worker.isShutdown()) onDropped();
+            return false;
+        }
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getQueueDepth() {
+        return worker.getQueue().size();
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void onDropped() {
+        long total = dropped.incrementAndGet();
+        long now = System.currentTimeMillis();
+        long last = lastAlertMs.get();
+        Log.w(TAG, "Antrian notifikasi penuh, dibuang (total " + total + ")");
+        OverflowListener l = overflowListener;
+        if (l != null && now - last >= ALERT_INTERVAL_MS && lastAlertMs.compareAndSet(last, now)) l.onOverflow(total);
+    }
+}
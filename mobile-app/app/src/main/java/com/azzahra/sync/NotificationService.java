@@ -1,23 +1,18 @@
 package com.azzahra.sync;
 
-import android.app.Notification;
 import android.content.Context;
-import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Bundle;
 import android.os.Vibrator;
 import android.service.notification.NotificationListenerService;
 import android.service.notification.StatusBarNotification;
 import android.util.Log;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicLong;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -26,12 +21,28 @@ import com.google.firebase.firestore.FirebaseFirestoreSettings;
 public class NotificationService extends NotificationListenerService {
     private FirebaseFirestore db;
     private SharedPreferences prefs;
+    private NotificationPipeline pipeline;
+    private DetectionUploader uploader;
+    private volatile DetectionOutbox outbox; // dibuka di worker pipeline, lihat onCreate
+    private BankParserRegistry parsers;
+    private SessionRepository session;
+    private final PipelineMetrics metrics = PipelineMetrics.get();
+    private final BankParser.Result parseResult = new BankParser.Result(); // hanya dipakai di worker
     
-    private static final Map<String, Long> processedHistory = new HashMap<>();
     private static final long DUPLICATE_TIMEOUT = 10000;
-    private static final String SECRET_KEY = "AZF-PAYMENT-SECRET-2024-xK9mP2vL8nQ4rT7w";
-    
-    private static String cachedRole = null;
+    // 1024 slot x 16 byte: jauh di atas jumlah notifikasi bank dalam 10 detik
+    static final DedupCache processedHistory = new DedupCache(1024, DUPLICATE_TIMEOUT);
+
+    private static final String PREF_SELECTED_PACKAGES = "selected_packages";
+    // Paket yang dipantau: snapshot immutable, diganti utuh saat user mencentang app di MainActivity.
+    // Listener disimpan di field: SharedPreferences hanya memegang weak reference.
+    private volatile Set<String> monitoredPackages = Collections.emptySet();
+    private String ownPackage;
+    private final SharedPreferences.OnSharedPreferenceChangeListener prefsListener = (p, key) -> {
+        if (PREF_SELECTED_PACKAGES.equals(key)) reloadMonitoredPackages();
+    };
+    static final AtomicLong rejectedCount = new AtomicLong();
+    static final AtomicLong acceptedCount = new AtomicLong();
 
     @Override
     public void onCreate() {
@@ -43,21 +54,70 @@ public class NotificationService extends NotificationListenerService {
                 .build();
         db.setFirestoreSettings(settings);
         prefs = getSharedPreferences("AzzahraPrefs", MODE_PRIVATE);
+        ownPackage = getPackageName();
+        reloadMonitoredPackages();
+        prefs.registerOnSharedPreferenceChangeListener(prefsListener);
+        uploader = new DetectionUploader(db, "paymentDetectionsPending");
+        session = SessionRepository.get(this);
+        parsers = BankParserRegistry.get(this);
+        parsers.watchConfig(db);
+        pipeline = new NotificationPipeline(NotificationPipeline.DEFAULT_CAPACITY, this::handleNotification);
+        pipeline.setOverflowListener(total -> updateUILog("⚠️ Notif terlalu banyak, " + total + " dibuang"));
+        // Service biasanya terikat saat boot sebelum activity mana pun: membuka outbox membaca ulang jurnal
+        // (fsync) dari disk, jadi dilakukan di worker. Tugas pertama di antrian, notifikasi menyusul sesudahnya.
+        pipeline.execute(this::openOutbox);
+    }
+
+    // Jalan di worker pipeline
+    private void openOutbox() {
+        DetectionOutbox o = DetectionOutbox.get(this);
+        o.attach(uploader, new DetectionOutbox.Listener() {
+            @Override
+            public void onSynced(DetectionOutbox.Detection detection) {
+                long now = System.currentTimeMillis();
+                metrics.increment(PipelineMetrics.Counter.UPLOADED);
+                if (detection.queuedAtMs > 0) metrics.recordMillis(PipelineMetrics.Stage.UPLOAD, now - detection.queuedAtMs);
+                if (detection.postTime > 0) metrics.recordMillis(PipelineMetrics.Stage.END_TO_END, now - detection.postTime);
+                updateUILog("☁️ SYNC OK: Rp " + String.format("%,d", detection.amount));
+            }
+
+            @Override
+            public void onRetry(String reason, long delayMs, int pending) {
+                metrics.increment(PipelineMetrics.Counter.FAILED);
+                updateUILog("❌ FIREBASE REJECT: " + reason + " (coba lagi " + (delayMs / 1000) + " dtk, " + pending + " antri)");
+            }
+        });
+        outbox = o;
+    }
+
+    @Override
+    public void onDestroy() {
+        prefs.unregisterOnSharedPreferenceChangeListener(prefsListener);
+        pipeline.shutdown();
+        parsers.stopWatching();
+        DetectionOutbox o = outbox;
+        if (o != null) o.detach(uploader);
+        uploader.shutdown();
+        super.onDestroy();
     }
 
     @Override
     public void onListenerConnected() {
         super.onListenerConnected();
         updateUILog("✅ SERVICE ACTIVE");
-        performManualScan();
+        pipeline.execute(this::performManualScan);
     }
 
+    // Jalan di worker pipeline, tidak menahan main thread walau notifikasi aktif banyak
     private void performManualScan() {
         try {
             StatusBarNotification[] active = getActiveNotifications();
             if (active != null) {
                 for (StatusBarNotification sbn : active) {
-                    onNotificationPosted(sbn);
+                    // Tanpa menambah counter diterima/ditolak: notifikasi lama bukan notifikasi masuk
+                    if (!isWatched(sbn.getPackageName())) continue;
+                    NotificationPipeline.Captured c = NotificationPipeline.capture(sbn);
+                    if (c != null) handleNotification(c);
                 }
             }
         } catch (Exception e) {
@@ -65,110 +125,140 @@ public class NotificationService extends NotificationListenerService {
         }
     }
 
+    private void reloadMonitoredPackages() {
+        Set<String> selected = prefs.getStringSet(PREF_SELECTED_PACKAGES, null);
+        monitoredPackages = selected == null ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(selected));
+    }
+
+    // Tolak cepat notifikasi app lain (chat, sosmed) tanpa alokasi, sebelum menyentuh FirebaseAuth / extras
+    private boolean isMonitored(String pkg) {
+        if (isWatched(pkg)) {
+            acceptedCount.incrementAndGet();
+            return true;
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    private boolean isWatched(String pkg) {
+        return monitoredPackages.contains(pkg) || pkg.equals(ownPackage);
+    }
+
+    // Main thread: hanya salin isi notifikasi lalu serahkan ke worker
     @Override
     public void onNotificationPosted(StatusBarNotification sbn) {
         try {
-            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-            if (user == null) return;
-
-            String pkg = sbn.getPackageName();
-            Set<String> selected = prefs.getStringSet("selected_packages", new HashSet<>());
-            boolean isDiag = pkg.equals(getPackageName());
-
-            if (selected.contains(pkg) || isDiag) {
-                String appName = pkg.contains(".") ? pkg.substring(pkg.lastIndexOf(".") + 1) : pkg;
-                
-                // LANGSUNG LOG AGAR BOSS TAHU NOTIF TERLIHAT
-                if (!isDiag) updateUILog("🔍 Menangkap notif dari " + appName);
-
-                if (cachedRole == null) {
-                    db.collection("users").document(user.getUid()).get().addOnSuccessListener(doc -> {
-                        if (doc.exists()) {
-                            cachedRole = doc.getString("role");
-                            if ("owner".equalsIgnoreCase(cachedRole)) {
-                                processNotification(sbn);
-                            } else {
-                                updateUILog("⚠️ Role '" + cachedRole + "' ditolak.");
-                            }
-                        }
-                    });
-                } else if ("owner".equalsIgnoreCase(cachedRole)) {
-                    processNotification(sbn);
-                }
+            if (!isMonitored(sbn.getPackageName())) return;
+            NotificationPipeline.Captured c = NotificationPipeline.capture(sbn);
+            if (c == null) return;
+            metrics.recordMillis(PipelineMetrics.Stage.CAPTURE, System.currentTimeMillis() - c.postTime);
+            pipeline.submit(c);
+        } catch (Exception err) {
+            Log.e("AzzahraLog", "Error", err);
+        }
+    }
+
+    // Notifikasi sudah lolos isMonitored
+    private void handleNotification(NotificationPipeline.Captured notif) {
+        try {
+            long t = metrics.since(PipelineMetrics.Stage.QUEUE, notif.capturedNanos);
+            metrics.increment(PipelineMetrics.Counter.CAPTURED);
+            // Tanpa cek getCurrentUser di sini: user bisa sesaat null (proses baru start / token di-refresh).
+            // Role dari cache SessionRepository, ownerId diisi outbox saat user sudah terbaca.
+
+            String pkg = notif.packageName;
+            boolean isDiag = pkg.equals(ownPackage);
+
+            String appName = pkg.contains(".") ? pkg.substring(pkg.lastIndexOf(".") + 1) : pkg;
+            
+            // LANGSUNG LOG AGAR BOSS TAHU NOTIF TERLIHAT
+            if (!isDiag) updateUILog("🔍 Menangkap notif dari " + appName);
+
+            if (session.isRoleKnown()) {
+                // Jalur normal: role tersimpan lokal, tanpa jaringan
+                boolean owner = session.isOwner();
+                metrics.since(PipelineMetrics.Stage.ROLE, t);
+                if (owner) processNotification(notif);
+            } else {
+                // Role belum pernah termuat (instal baru): semua notif menunggu satu snapshot yang sama
+                session.load((role, error) -> pipeline.execute(() -> {
+                    metrics.since(PipelineMetrics.Stage.ROLE, t);
+                    if (SessionRepository.ROLE_OWNER.equalsIgnoreCase(role)) {
+                        processNotification(notif);
+                    } else if (error == null) {
+                        updateUILog("⚠️ Role '" + role + "' ditolak.");
+                    }
+                }));
             }
         } catch (Exception err) {
             Log.e("AzzahraLog", "Error", err);
         }
     }
 
-    private void processNotification(StatusBarNotification sbn) {
+    private void processNotification(NotificationPipeline.Captured notif) {
         try {
-            Notification n = sbn.getNotification();
-            if (n == null) return;
-            Bundle e = n.extras;
-            String title = e.getString(Notification.EXTRA_TITLE, "");
-            CharSequence textChar = e.getCharSequence(Notification.EXTRA_TEXT);
-            String text = (textChar != null) ? textChar.toString() : "";
-            String fullContent = (title + " " + text).trim();
+            String fullContent = notif.fullContent();
 
             if (fullContent.isEmpty()) return;
 
-            String uniqueId = sbn.getPackageName() + "_" + fullContent.replaceAll("[^a-zA-Z0-9]", "");
-            long now = System.currentTimeMillis();
-            if (processedHistory.containsKey(uniqueId) && (now - processedHistory.get(uniqueId) < DUPLICATE_TIMEOUT)) return;
-            processedHistory.put(uniqueId, now);
+            long t = System.nanoTime();
+            long fingerprint = DedupCache.fingerprint(notif.packageName, fullContent);
+            boolean duplicate = processedHistory.seenRecently(fingerprint, System.currentTimeMillis());
+            t = metrics.since(PipelineMetrics.Stage.DEDUP, t);
+            if (duplicate) {
+                metrics.increment(PipelineMetrics.Counter.DEDUPED);
+                Log.d("AzzahraLog", "Duplikat notif dilewati, dedup " + processedHistory.describe());
+                return;
+            }
 
             String low = fullContent.toLowerCase(Locale.getDefault());
             
-            if (sbn.getPackageName().equals(getPackageName())) {
+            if (notif.packageName.equals(ownPackage)) {
                 updateUILog("⚙️ DIAGNOSTIC: " + fullContent);
                 return;
             }
 
-            // FILTER KATA KUNCI (LOG LEBIH DETAIL)
-            if (low.contains("masuk") || low.contains("pemasukan")) {
-                long amt = extractAmount(fullContent);
-                if (amt > 0) {
+            // Parser sesuai aplikasi bank (kata kunci, pengecualian, kalimat saldo), generik kalau tidak dikenal
+            BankParser parser = parsers.forPackage(notif.packageName);
+            parser.parse(fullContent, low, parseResult);
+            metrics.since(PipelineMetrics.Stage.PARSE, t);
+            if (parseResult.status != BankParser.RESULT_AMOUNT || parseResult.amount % 500 == 0) {
+                metrics.increment(PipelineMetrics.Counter.IGNORED_BY_RULE);
+            }
+            switch (parseResult.status) {
+                case BankParser.RESULT_AMOUNT:
+                    long amt = parseResult.amount;
                     if (amt % 500 == 0) {
                         updateUILog("ℹ️ Abaikan (Bulat): Rp " + String.format("%,d", amt));
                         return;
                     }
                     vibrate();
-                    updateUILog("💰 TERDETEKSI: Rp " + String.format("%,d", amt));
-                    sendToFirebase(sbn.getPackageName(), amt, fullContent, uniqueId);
-                } else {
+                    updateUILog("💰 TERDETEKSI (" + parser.getName() + "): Rp " + String.format("%,d", amt));
+                    sendToFirebase(notif, amt, fullContent);
+                    break;
+                case BankParser.RESULT_NO_AMOUNT:
                     updateUILog("⏩ Diabaikan: Tidak ada angka nominal.");
-                }
-            } else {
-                updateUILog("⏩ Diabaikan: Tidak ada kata 'masuk'");
+                    break;
+                case BankParser.RESULT_IGNORED:
+                    updateUILog("⏩ Diabaikan: Bukan uang masuk (" + parser.getName() + ")");
+                    break;
+                default:
+                    updateUILog("⏩ Diabaikan: Tidak ada kata 'masuk'");
+                    break;
             }
         } catch (Exception err) {
             Log.e("AzzahraLog", "Error", err);
         }
     }
 
-    private long extractAmount(String text) {
-        String low = text.toLowerCase();
-        try {
-            Pattern p1 = Pattern.compile("(rp|idr)\\s*([0-9.,]+)");
-            Matcher m1 = p1.matcher(low);
-            if (m1.find()) return parseCleanAmount(m1.group(2));
-
-            Pattern p2 = Pattern.compile("([0-9]{1,3}([.,][0-9]{3})+)");
-            Matcher m2 = p2.matcher(low);
-            if (m2.find()) return parseCleanAmount(m2.group());
-
-            Pattern p3 = Pattern.compile("\\b[0-9]{4,12}\\b");
-            Matcher m3 = p3.matcher(low);
-            if (m3.find()) return parseCleanAmount(m3.group());
-        } catch (Exception e) {}
-        return 0;
-    }
-
-    private long parseCleanAmount(String raw) {
-        if (raw.endsWith(".00") || raw.endsWith(",00")) raw = raw.substring(0, raw.length() - 3);
-        String clean = raw.replaceAll("[^0-9]", "");
-        return clean.isEmpty() ? 0 : Long.parseLong(clean);
+    // ID dokumen Firestore: paket + "_" + huruf/angka notifikasi (format lama, dipakai web admin)
+    private static String documentId(String pkg, String content) {
+        StringBuilder sb = new StringBuilder(pkg.length() + 1 + content.length()).append(pkg).append('_');
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (DedupCache.isAsciiAlphanumeric(c)) sb.append(c);
+        }
+        return sb.toString();
     }
 
     private void vibrate() {
@@ -178,29 +268,18 @@ public class NotificationService extends NotificationListenerService {
         } catch (Exception ignored) {}
     }
 
+    // Ke LogStore di proses yang sama: tidak ada broadcast, baris tetap tersimpan walau UI tertutup
     private void updateUILog(String m) {
-        String time = new SimpleDateFormat("HH:mm:ss", Locale.getDefault()).format(new Date());
-        Intent i = new Intent("com.azzahra.sync.NEW_LOG");
-        i.setPackage(getPackageName());
-        i.putExtra("log_message", "[" + time + "] " + m);
-        sendBroadcast(i);
+        LogStore.get().add(m);
     }
 
-    private void sendToFirebase(String bank, long amt, String raw, String docId) {
+    // Dicatat ke outbox di disk dulu (tidak hilang walau offline / user sesaat null / app dibunuh),
+    // lalu dikirim dalam batch oleh outbox. Dipanggil di worker pipeline.
+    private void sendToFirebase(NotificationPipeline.Captured notif, long amt, String raw) {
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user == null) return;
-
-        Map<String, Object> d = new HashMap<>();
-        d.put("amount", amt); 
-        d.put("bank", bank); 
-        d.put("rawText", raw);
-        d.put("secretKey", SECRET_KEY);
-        d.put("ownerId", user.getUid());
-        d.put("timestamp", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date()));
-        d.put("createdAt", com.google.firebase.firestore.FieldValue.serverTimestamp());
-
-        db.collection("paymentDetectionsPending").document(docId).set(d)
-            .addOnSuccessListener(aVoid -> updateUILog("☁️ SYNC OK: Rp " + String.format("%,d", amt)))
-            .addOnFailureListener(e -> updateUILog("❌ FIREBASE REJECT: " + e.getMessage()));
+        long now = System.currentTimeMillis();
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date(now));
+        outbox.add(new DetectionOutbox.Detection(documentId(notif.packageName, raw), notif.packageName, amt, raw,
+                user != null ? user.getUid() : null, timestamp, notif.postTime, now));
     }
 }
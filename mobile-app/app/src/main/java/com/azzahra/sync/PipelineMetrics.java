@@ -0,0 +1,170 @@
+package com.azzahra.sync;
+
+import android.content.Context;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Metrik jalur deteksi pembayaran: notifikasi bank muncul -> diproses -> dokumen diterima Firestore.
+// Per tahap ada histogram latensi (bucket pangkat 2 dalam mikrodetik, tanpa lock & tanpa alokasi),
+// ditambah counter jumlah notifikasi di tiap cabang. Ditampilkan di tab METRICS dan bisa diekspor ke file.
+public final class PipelineMetrics {
+    private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+
+    public enum Stage {
+        CAPTURE("Notif->capture"),   // waktu post notifikasi sampai listener menerimanya
+        QUEUE("Antri worker"),       // capture di main thread sampai worker mulai
+        ROLE("Cek role"),
+        DEDUP("Dedup"),
+        PARSE("Parse nominal"),
+        UPLOAD("Outbox->ack"),       // masuk outbox sampai Firestore konfirmasi
+        END_TO_END("Notif->ack");    // total: notifikasi muncul sampai dokumen tersimpan di server
+
+        final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    public enum Counter {
+        CAPTURED("Ditangkap"),
+        IGNORED_BY_RULE("Diabaikan aturan"),
+        DEDUPED("Duplikat"),
+        UPLOADED("Terkirim"),
+        FAILED("Gagal kirim/retry");
+
+        final String label;
+
+        Counter(String label) {
+            this.label = label;
+        }
+    }
+
+    // Bucket i berisi nilai < 2^i mikrodetik; bucket terakhir menampung sisanya (> ~9 menit)
+    private static final int BUCKETS = 30;
+
+    private static final class Histogram {
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong sumMicros = new AtomicLong();
+        final AtomicLong maxMicros = new AtomicLong();
+
+        void record(long micros) {
+            if (micros < 0) micros = 0;
+            int b = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(b);
+            count.incrementAndGet();
+            sumMicros.addAndGet(micros);
+            long max;
+            while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {}
+        }
+
+        // Batas atas bucket tempat persentil q jatuh (perkiraan, maks 2x nilai sebenarnya)
+        long percentileMicros(double q) {
+            long total = count.get();
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(total * q);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min(i == 0 ? 0 : 1L << i, maxMicros.get());
+            }
+            return maxMicros.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            count.set(0);
+            sumMicros.set(0);
+            maxMicros.set(0);
+        }
+    }
+
+    private final Histogram[] histograms = new Histogram[Stage.values().length];
+    private final AtomicLong[] counters = new AtomicLong[Counter.values().length];
+    private volatile long sinceMs = System.currentTimeMillis();
+
+    private PipelineMetrics() {
+        for (int i = 0; i < histograms.length; i++) histograms[i] = new Histogram();
+        for (int i = 0; i < counters.length; i++) counters[i] = new AtomicLong();
+    }
+
+    public static PipelineMetrics get() {
+        return INSTANCE;
+    }
+
+    public void recordNanos(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    // Untuk tahap yang diukur dengan jam dinding (waktu post notifikasi dari sistem)
+    public void recordMillis(Stage stage, long millis) {
+        histograms[stage.ordinal()].record(millis * 1000);
+    }
+
+    // Catat lama tahap sejak startNanos, return waktu sekarang (untuk tahap berikutnya)
+    public long since(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        recordNanos(stage, now - startNanos);
+        return now;
+    }
+
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].incrementAndGet();
+    }
+
+    public long get(Counter counter) {
+        return counters[counter.ordinal()].get();
+    }
+
+    public void reset() {
+        for (Histogram h : histograms) h.reset();
+        for (AtomicLong c : counters) c.set(0);
+        sinceMs = System.currentTimeMillis();
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Sejak ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date(sinceMs))).append("\n\n");
+        for (Counter c : Counter.values()) {
+            sb.append(String.format(Locale.US, "%-18s %8d%n", c.label, get(c)));
+        }
+        sb.append(String.format(Locale.US, "%-18s %8d%n", "Paket ditolak", NotificationService.rejectedCount.get()));
+        sb.append('\n').append(String.format(Locale.US, "%-16s %6s %8s %8s %8s %8s%n", "Tahap (ms)", "n", "p50", "p90", "p99", "maks"));
+        for (Stage s : Stage.values()) {
+            Histogram h = histograms[s.ordinal()];
+            sb.append(String.format(Locale.US, "%-16s %6d %8s %8s %8s %8s%n", s.label, h.count.get(),
+                    ms(h.percentileMicros(0.50)), ms(h.percentileMicros(0.90)),
+                    ms(h.percentileMicros(0.99)), ms(h.maxMicros.get())));
+        }
+        return sb.toString();
+    }
+
+    private static String ms(long micros) {
+        return micros < 10000 ? String.format(Locale.US, "%.2f", micros / 1000.0) : String.valueOf(micros / 1000);
+    }
+
+    // Tulis laporan ke folder file aplikasi (Android/data/<paket>/files), bisa diambil lewat USB / file manager
+    public File export(Context context) throws IOException {
+        File dir = context.getExternalFilesDir(null);
+        if (dir == null) dir = context.getFilesDir();
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File file = new File(dir, "metrics-" + stamp + ".txt");
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"))) {
+            w.write(describe());
+            w.write("\nDedup: " + NotificationService.processedHistory.describe() + "\n");
+            w.write("Antri upload: " + DetectionOutbox.peekPendingCount() + "\n");
+        }
+        return file;
+    }
+}
@@ -0,0 +1,138 @@
+package com.azzahra.sync;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Base64;
+import android.util.Log;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark jalur cetak lengkap tanpa printer asli: payload base64 dari web -> BulkPrintSession
+// (decode + parse) -> template label -> PrintJobScheduler -> transport loopback.
+// Dijalankan dua kali: sink tanpa batas (mengukur overhead aplikasi) dan simulasi printer 58mm murah.
+// Untuk cek di perangkat asli (ART, thread penulis, alokasi). Versi yang jalan di CI (hanya
+// melaporkan angka, tanpa batas waktu): LabelPipelineBenchmarkTest (unit test JVM).
+public class PrintBenchmark {
+    private static final String TAG = "PrintBenchmark";
+    private static final String ADDRESS = PrinterTransport.SCHEME_LOOPBACK + "benchmark";
+    private static final int[] BATCHES = {1, 50, 500};
+    private static final int WARMUP_LABELS = 20;
+    private static final long BATCH_TIMEOUT_MS = 180000;
+
+    // Printer thermal 58mm Bluetooth murah: SPP efektif ~115200 baud, buffer terima 4 KB
+    private static final long SIM_LATENCY_MS = 3;
+    private static final long SIM_BYTES_PER_SECOND = 11520;
+    private static final int SIM_BUFFER_BYTES = 4096;
+
+    public interface Listener {
+        void onProgress(String status);
+        void onFinished(String report);
+    }
+
+    private final Context context;
+
+    public PrintBenchmark(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public void start(Listener listener) {
+        new Thread(() -> {
+            StringBuilder report = new StringBuilder();
+            report.append(runSuite("Sink tanpa batas", new LoopbackTransport(0, 0, 0, false), listener));
+            report.append('\n');
+            report.append(runSuite("Simulasi printer 58mm", new LoopbackTransport(SIM_LATENCY_MS, SIM_BYTES_PER_SECOND, SIM_BUFFER_BYTES, false), listener));
+            Log.i(TAG, report.toString());
+            listener.onFinished(report.toString());
+        }, "PrintBenchmark").start();
+    }
+
+    private String runSuite(String name, LoopbackTransport loopback, Listener listener) {
+        StringBuilder sb = new StringBuilder(name).append('\n');
+        BluetoothPrinterManager manager = new BluetoothPrinterManager(context, ADDRESS, address -> loopback);
+        PrinterPool pool = new PrinterPool(context, manager, false);
+        try {
+            manager.connect(ADDRESS);
+            listener.onProgress(name + ": pemanasan...");
+            runBatch(pool, loopback, WARMUP_LABELS);
+            for (int n : BATCHES) {
+                listener.onProgress(name + ": " + n + " label...");
+                sb.append(runBatch(pool, loopback, n)).append('\n');
+            }
+        } catch (Exception e) {
+            sb.append("Gagal: ").append(e.getMessage()).append('\n');
+        } finally {
+            manager.shutdown();
+        }
+        return sb.toString();
+    }
+
+    private String runBatch(PrinterPool pool, LoopbackTransport loopback, int count) throws InterruptedException {
+        String payload = buildPayload(count);
+        long[] latencies = new long[count];
+        CountDownLatch printed = new CountDownLatch(count);
+        String[] failure = new String[1];
+
+        BulkPrintSession session = new BulkPrintSession(pool, new BulkPrintSession.ProgressListener() {
+            @Override public void onProgress(int done, int total) {}
+            @Override public void onFinished(int done) {}
+
+            @Override
+            public void onPaused(int done, String reason) {
+                failure[0] = reason;
+            }
+
+            @Override
+            public void onLabelPrinted(int index, PrintJob job) {
+                latencies[index] = job.getLatencyNanos();
+                printed.countDown();
+            }
+        });
+
+        loopback.reset();
+        Debug.resetGlobalAllocCounts();
+        Debug.startAllocCounting();
+        long start = System.nanoTime();
+        session.start(payload);
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(BATCH_TIMEOUT_MS);
+        while (!printed.await(100, TimeUnit.MILLISECONDS)) {
+            if (failure[0] != null || System.nanoTime() > deadline) break;
+        }
+        long elapsed = System.nanoTime() - start;
+        Debug.stopAllocCounting();
+        long allocations = Debug.getGlobalAllocCount();
+
+        if (printed.getCount() > 0) {
+            session.abort();
+            return String.format(Locale.US, "%4d label: gagal (%s)", count,
+                    failure[0] != null ? failure[0] : "timeout");
+        }
+
+        Arrays.sort(latencies);
+        long p99 = latencies[Math.max(0, (int) Math.ceil(count * 0.99) - 1)];
+        double seconds = elapsed / 1e9;
+        return String.format(Locale.US, "%4d label: %.1f label/s, %d B/s, %d alokasi/label, p99 %d ms",
+                count,
+                count / seconds,
+                (long) (loopback.getBytesReceived() / seconds),
+                allocations / count,
+                TimeUnit.NANOSECONDS.toMillis(p99));
+    }
+
+    // Payload seperti kiriman web admin: label JSON dipisah garis potong, lalu base64
+    private static String buildPayload(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append('\n').append(BulkPrintSession.SEPARATOR).append('\n');
+            sb.append("{\"name\":\"Pembeli Benchmark ").append(i)
+                    .append("\",\"phone\":\"08123456").append(String.format(Locale.US, "%04d", i))
+                    .append("\",\"address\":\"Jl. Raya Cibeunying Kidul No. ").append(i)
+                    .append(" RT 03/RW 07 Kel. Sukamaju Kec. Cibeunying Kidul Kota Bandung Jawa Barat 40121")
+                    .append("\",\"items\":\"2x Gamis Syari Maroon (XL), 1x Khimar Instan Hitam, 3x Inner Ciput Rajut")
+                    .append("\",\"courier\":\"J&T REG\",\"orderId\":\"BENCH").append(i).append("\"}");
+        }
+        return Base64.encodeToString(sb.toString().getBytes(Charset.forName("UTF-8")), Base64.DEFAULT);
+    }
+}
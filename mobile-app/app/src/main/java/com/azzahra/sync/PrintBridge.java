@@ -5,44 +5,49 @@ import android.os.Handler;
 import android.os.Looper;
 import android.webkit.JavascriptInterface;
 import android.widget.Toast;
-import org.json.JSONObject;
 
 public class PrintBridge {
     private Context context;
-    private BluetoothPrinterManager printerManager;
+    private PrinterPool printers;
 
-    public PrintBridge(Context context, BluetoothPrinterManager printerManager) {
+    public PrintBridge(Context context, PrinterPool printers) {
         this.context = context;
-        this.printerManager = printerManager;
+        this.printers = printers;
     }
 
     @JavascriptInterface
     public void printLabel(String jsonData) {
         try {
-            JSONObject obj = new JSONObject(jsonData);
-            String name = obj.optString("name", "");
-            String phone = obj.optString("phone", "");
-            String address = obj.optString("address", "");
-            String items = obj.optString("items", "");
-            String courier = obj.optString("courier", "");
-            String orderId = obj.optString("orderId", "");
+            LabelData label = LabelData.fromJson(jsonData);
 
-            StringBuilder sb = new StringBuilder();
-            sb.append("================================\n");
-            sb.append("         AZZAHRA FASHION        \n");
-            sb.append("================================\n");
-            sb.append("Kepada : ").append(name).append("\n");
-            sb.append("Telp   : ").append(phone).append("\n");
-            sb.append("Alamat : ").append(formatAddress(address)).append("\n");
-            sb.append("--------------------------------\n");
-            sb.append("Item   : ").append(formatItems(items)).append("\n");
-            sb.append("Ekspedisi: ").append(courier).append("\n");
-            sb.append("--------------------------------\n");
-            sb.append("Order #").append(orderId).append("\n");
-            sb.append("================================\n");
-
-            if (printerManager.isConnected()) {
-                printerManager.print(sb.toString());
+            if (printers.isAnyConnected()) {
+                PrintHistory history = PrintHistory.get(context);
+                String key = PrintHistory.keyFor(label, null);
+                if (!history.tryAcquire(key, label.isReprint())) {
+                    showToast("Label sudah dicetak barusan (duplikat diabaikan)");
+                    return;
+                }
+                // Dicatat ke spool dulu: kalau gagal / aplikasi mati, label dicetak saat printer siap lagi
+                PrintSpool spool = PrintSpool.get(context);
+                long spoolId = spool.append(label, null);
+                printers.submit(new PrintJob(label, null, PrintJob.PRIORITY_SINGLE, job -> {
+                    switch (job.getState()) {
+                        case DONE:
+                            spool.markDone(spoolId);
+                            break;
+                        case CANCELLED:
+                            spool.markDone(spoolId);
+                            history.release(key);
+                            break;
+                        case FAILED:
+                            spool.release(spoolId);
+                            history.release(key);
+                            showToast("Gagal cetak: " + job.getError() + " (dicoba lagi otomatis)");
+                            break;
+                        default:
+                            break;
+                    }
+                }));
                 showToast("Mencetak Label...");
             } else {
                 showToast("Printer belum terkoneksi! Hubungkan di menu Printer.");
@@ -52,29 +57,6 @@ public class PrintBridge {
         }
     }
 
-    private String formatAddress(String addr) {
-        // Logika sederhana memotong alamat per 32 karakter agar rapi
-        return wrapText(addr, 23); // 32 - 9 (panjang "Alamat : ")
-    }
-
-    private String formatItems(String items) {
-        return wrapText(items, 23);
-    }
-
-    private String wrapText(String text, int limit) {
-        StringBuilder sb = new StringBuilder();
-        int count = 0;
-        for (String word : text.split(" ")) {
-            if (count + word.length() > limit) {
-                sb.append("\n         "); // indentasi untuk baris baru
-                count = 0;
-            }
-            sb.append(word).append(" ");
-            count += word.length() + 1;
-        }
-        return sb.toString();
-    }
-
     private void showToast(String msg) {
         new Handler(Looper.getMainLooper()).post(() -> 
             Toast.makeText(context, msg, Toast.LENGTH_SHORT).show()
@@ -0,0 +1,103 @@
+package com.azzahra.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Riwayat cetak singkat untuk membuang label dobel (double tap, browser retry,
+// onNewIntent + onCreate). Kunci: orderId, atau hash isi untuk label teks polos.
+// Terbatas jumlah entri dan jendela waktu; bisa dilewati dengan flag reprint.
+public class PrintHistory {
+    private static final String TAG = "PrintHistory";
+    private static final int MAX_ENTRIES = 1000;
+    public static final long DEFAULT_WINDOW_MS = 120000;
+
+    private static PrintHistory instance;
+
+    private final SharedPreferences prefs;
+    private final AtomicLong suppressed = new AtomicLong();
+    private volatile long windowMs;
+    // Urutan sisip = urutan waktu, jadi entri kedaluwarsa selalu di depan
+    private final LinkedHashMap<String, Long> printed = new LinkedHashMap<String, Long>(64, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private PrintHistory(Context context) {
+        prefs = context.getSharedPreferences("PrinterPrefs", Context.MODE_PRIVATE);
+        windowMs = prefs.getLong("dedup_window_ms", DEFAULT_WINDOW_MS);
+    }
+
+    public static synchronized PrintHistory get(Context context) {
+        if (instance == null) instance = new PrintHistory(context.getApplicationContext());
+        return instance;
+    }
+
+    public static String keyFor(LabelData label, String text) {
+        if (label != null && !label.get(LabelTemplate.Field.ORDER_ID).isEmpty()) {
+            return "order:" + label.get(LabelTemplate.Field.ORDER_ID);
+        }
+        // FNV-1a 64 bit atas seluruh isi label
+        long h = 0xcbf29ce484222325L;
+        if (label != null) {
+            for (LabelTemplate.Field f : LabelTemplate.Field.values()) h = hash(h, label.get(f));
+        }
+        if (text != null) h = hash(h, text);
+        return "hash:" + Long.toHexString(h);
+    }
+
+    private static long hash(long h, CharSequence s) {
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= 0x1F; // pemisah antar field
+        return h * 0x100000001b3L;
+    }
+
+    // true = boleh dicetak (kunci dicatat). false = duplikat dalam jendela waktu, dibuang.
+    public synchronized boolean tryAcquire(String key, boolean reprint) {
+        long now = System.currentTimeMillis();
+        expire(now);
+        if (!reprint && printed.containsKey(key)) {
+            suppressed.incrementAndGet();
+            Log.i(TAG, "Duplikat diabaikan: " + key);
+            return false;
+        }
+        printed.remove(key); // sisip ulang supaya tetap urut waktu
+        printed.put(key, now);
+        return true;
+    }
+
+    // Label batal / gagal tercetak: boleh dikirim ulang tanpa flag reprint
+    public synchronized void release(String key) {
+        printed.remove(key);
+    }
+
+    private void expire(long now) {
+        Iterator<Map.Entry<String, Long>> it = printed.entrySet().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().getValue() < windowMs) break;
+            it.remove();
+        }
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    public void setWindowMs(long windowMs) {
+        this.windowMs = windowMs;
+        prefs.edit().putLong("dedup_window_ms", windowMs).apply();
+    }
+}
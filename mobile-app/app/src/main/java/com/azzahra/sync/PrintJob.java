@@ -0,0 +1,133 @@
+package com.azzahra.sync;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PrintJob implements Comparable<PrintJob> {
+    // Angka kecil = lebih didahulukan. Label satuan selalu menyalip antrian bulk.
+    public static final int PRIORITY_SINGLE = 0;
+    public static final int PRIORITY_BULK = 10;
+
+    public enum State { QUEUED, PRINTING, DONE, FAILED, CANCELLED }
+
+    public interface Listener {
+        void onStateChanged(PrintJob job);
+    }
+
+    private static final AtomicLong SEQ = new AtomicLong();
+
+    private final long id = SEQ.incrementAndGet();
+    private final int priority;
+    private final String text;
+    private final LabelData label;
+    private final Listener listener;
+    private final PrintJob origin; // job asli kalau ini salinan untuk failover ke printer lain
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final long createdNanos = System.nanoTime();
+    private volatile long finishedNanos;
+    private volatile long requestNanos; // waktu link cetak diterima (0 = tidak diukur)
+    private volatile State state = State.QUEUED;
+    private volatile String error;
+    private volatile boolean cancelled;
+
+    public PrintJob(String text, int priority, Listener listener) {
+        this(null, text, priority, listener);
+    }
+
+    // Label dari template; text (boleh null) dicetak setelah label, mis. garis potong
+    public PrintJob(LabelData label, String text, int priority, Listener listener) {
+        this(label, text, priority, listener, null);
+    }
+
+    private PrintJob(LabelData label, String text, int priority, Listener listener, PrintJob origin) {
+        this.label = label;
+        this.text = text;
+        this.priority = priority;
+        this.listener = listener;
+        this.origin = origin;
+    }
+
+    // Salinan isi job yang sama untuk dikirim ke printer tertentu; ikut batal kalau job asli dibatalkan
+    PrintJob attempt(Listener attemptListener) {
+        return new PrintJob(label, text, priority, attemptListener, this);
+    }
+
+    public long getId() { return id; }
+    public int getPriority() { return priority; }
+    public String getText() { return text; }
+    public LabelData getLabel() { return label; }
+    public State getState() { return state; }
+    public String getError() { return error; }
+
+    // Waktu dari job dibuat sampai selesai (antri + cetak), -1 kalau belum selesai
+    public long getLatencyNanos() {
+        return finishedNanos == 0 ? -1 : finishedNanos - createdNanos;
+    }
+
+    // Tandai job pertama dari deep link supaya latency link -> byte pertama tercatat
+    void setRequestNanos(long nanos) {
+        requestNanos = nanos;
+    }
+
+    long getRequestNanos() {
+        return origin != null ? origin.getRequestNanos() : requestNanos;
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED || state == State.CANCELLED;
+    }
+
+    // Job yang masih antri akan dibuang oleh thread penulis. Yang sedang dicetak tetap jalan.
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled || (origin != null && origin.isCancelled());
+    }
+
+    // Handle selesai: tunggu sampai job tercetak / gagal (dipanggil dari luar UI thread)
+    public boolean await(long timeoutMs) throws InterruptedException {
+        return finished.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    void markPrinting() {
+        update(State.PRINTING, null);
+    }
+
+    void markDone() {
+        update(State.DONE, null);
+        finished.countDown();
+    }
+
+    void markFailed(String reason) {
+        update(State.FAILED, reason);
+        finished.countDown();
+    }
+
+    void markCancelled() {
+        update(State.CANCELLED, "Dibatalkan");
+        finished.countDown();
+    }
+
+    private void update(State newState, String reason) {
+        this.error = reason;
+        if (newState != State.PRINTING) finishedNanos = System.nanoTime();
+        this.state = newState;
+        if (listener != null) {
+            try {
+                listener.onStateChanged(this);
+            } catch (Exception ignored) {}
+        }
+    }
+
+    @Override
+    public int compareTo(PrintJob o) {
+        if (priority != o.priority) return priority < o.priority ? -1 : 1;
+        // Salinan failover tetap memakai urutan job aslinya
+        long a = origin != null ? origin.id : id;
+        long b = o.origin != null ? o.origin.id : o.id;
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+}
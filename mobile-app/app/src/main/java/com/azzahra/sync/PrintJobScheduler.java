@@ -0,0 +1,148 @@
+package com.azzahra.sync;
+
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class PrintJobScheduler {
+    private static final String TAG = "PrintScheduler";
+
+    private final BluetoothPrinterManager printer;
+    private final int capacity;
+    private final PriorityQueue<PrintJob> queue = new PriorityQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private Thread writer;
+
+    public PrintJobScheduler(BluetoothPrinterManager printer, int capacity) {
+        this.printer = printer;
+        this.capacity = capacity;
+    }
+
+    public synchronized void start() {
+        if (writer != null && writer.isAlive()) return;
+        // SATU thread penulis: socket printer tidak boleh ditulis bersamaan
+        writer = new Thread(this::writerLoop, "PrintWriter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Hentikan thread penulis; job yang masih antri dibatalkan
+    public void shutdown() {
+        shutdown(null);
+    }
+
+    // failReason != null: job yang masih antri ditandai gagal (bukan dibatalkan) supaya
+    // PrinterPool memindahkannya ke printer lain lewat jalur failover
+    public void shutdown(String failReason) {
+        Thread t;
+        synchronized (this) {
+            t = writer;
+            writer = null;
+        }
+        if (t != null) t.interrupt();
+        List<PrintJob> dropped = new ArrayList<>();
+        lock.lock();
+        try {
+            dropped.addAll(queue);
+            queue.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (PrintJob job : dropped) {
+            if (failReason != null) job.markFailed(failReason);
+            else job.markCancelled();
+        }
+    }
+
+    // Non-blocking: kalau antrian penuh job langsung ditolak (aman dipanggil dari UI thread)
+    public boolean submit(PrintJob job) {
+        lock.lock();
+        try {
+            if (queue.size() < capacity) {
+                enqueue(job);
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Callback dipanggil di luar lock supaya listener bebas memanggil balik scheduler
+        job.markFailed("Antrian cetak penuh (" + capacity + ")");
+        return false;
+    }
+
+    // Backpressure: tunggu sampai ada slot kosong. Untuk produser bulk di background thread.
+    public boolean submit(PrintJob job, long timeoutMs) throws InterruptedException {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lockInterruptibly();
+        try {
+            while (queue.size() >= capacity && nanos > 0) {
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (queue.size() < capacity) {
+                enqueue(job);
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        job.markFailed("Antrian cetak penuh (" + capacity + ")");
+        return false;
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(PrintJob job) {
+        queue.add(job);
+        notEmpty.signal();
+        start();
+    }
+
+    private PrintJob take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) notEmpty.await();
+            PrintJob job = queue.poll();
+            notFull.signal();
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writerLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            PrintJob job;
+            try {
+                job = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job.isCancelled()) {
+                job.markCancelled();
+                continue;
+            }
+            job.markPrinting();
+            try {
+                printer.print(job);
+                job.markDone();
+            } catch (Exception e) {
+                Log.e(TAG, "Job #" + job.getId() + " gagal: " + e.getMessage());
+                job.markFailed(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.azzahra.sync;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Spool cetak di disk (di atas Journal): setiap label yang diterima dicatat dulu, baru
+// ditandai selesai setelah printer mengonfirmasi. Kalau aplikasi dibunuh atau printer putus,
+// label yang tersisa dicetak ulang berurutan saat aplikasi / service / boot berikutnya.
+public class PrintSpool {
+    private static final String TAG = "PrintSpool";
+    private static final String FILE_NAME = "print_spool.jnl";
+
+    private static PrintSpool instance;
+
+    public static final class SpooledLabel {
+        public final long id;
+        public final LabelData label; // null untuk teks polos
+        public final String text;
+
+        SpooledLabel(long id, LabelData label, String text) {
+            this.id = id;
+            this.label = label;
+            this.text = text;
+        }
+    }
+
+    private final Journal journal; // null kalau file spool tidak bisa dibuka (cetak tetap jalan, tanpa spool)
+    // Entri yang sedang dipegang sesi / job di proses ini (jangan di-resume dua kali)
+    private final Set<Long> live = new HashSet<>();
+
+    private PrintSpool(Context context) {
+        Journal j = null;
+        try {
+            j = new Journal(new File(context.getFilesDir(), FILE_NAME), false);
+            if (j.pendingCount() > 0) Log.i(TAG, j.pendingCount() + " label tersisa dari sesi sebelumnya");
+        } catch (IOException e) {
+            Log.e(TAG, "Spool tidak bisa dibuka: " + e.getMessage());
+        }
+        journal = j;
+    }
+
+    public static synchronized PrintSpool get(Context context) {
+        if (instance == null) instance = new PrintSpool(context.getApplicationContext());
+        return instance;
+    }
+
+    // Return id spool, atau 0 kalau spool tidak tersedia
+    public synchronized long append(LabelData label, String text) {
+        if (journal == null) return 0;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeBoolean(label != null);
+            if (label != null) label.writeTo(out);
+            out.writeBoolean(text != null);
+            if (text != null) out.writeUTF(text);
+            long id = journal.append(bytes.toByteArray());
+            live.add(id);
+            return id;
+        } catch (IOException e) {
+            Log.e(TAG, "Gagal menulis spool: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // Hanya untuk label yang dikonfirmasi printer sudah tercetak: hapus dari spool
+    public synchronized void markDone(long id) {
+        if (journal == null || id == 0) return;
+        live.remove(id);
+        try {
+            journal.markDone(id);
+        } catch (IOException e) {
+            Log.e(TAG, "Gagal menandai spool: " + e.getMessage());
+        }
+    }
+
+    // Label belum tercetak (gagal / sesi dibatalkan): tetap di spool, boleh diambil alih oleh resume berikutnya
+    public synchronized void release(long id) {
+        live.remove(id);
+    }
+
+    public synchronized int pendingCount() {
+        return journal == null ? 0 : journal.pendingCount();
+    }
+
+    // Ambil label yang tertinggal (tidak sedang dipegang siapa pun), urut sesuai waktu masuk
+    public synchronized List<SpooledLabel> claimOrphans() {
+        List<SpooledLabel> out = new ArrayList<>();
+        if (journal == null) return out;
+        for (Journal.Record r : journal.pending()) {
+            if (live.contains(r.id)) continue;
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(r.payload));
+                LabelData label = in.readBoolean() ? LabelData.readFrom(in) : null;
+                String text = in.readBoolean() ? in.readUTF() : null;
+                out.add(new SpooledLabel(r.id, label, text));
+                live.add(r.id);
+            } catch (IOException e) {
+                Log.e(TAG, "Entri spool #" + r.id + " rusak, dibuang");
+                markDone(r.id);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,46 @@
+package com.azzahra.sync;
+
+import java.nio.charset.Charset;
+
+// Codepage teks printer + perintah ESC/POS untuk memilihnya.
+// ESC @ (reset) mengembalikan printer ke codepage bawaan, jadi perintah ini dikirim ulang setiap job.
+public enum PrinterCodepage {
+    // Printer thermal China: mode karakter Cina (FS &), dulu satu-satunya pilihan aplikasi
+    GBK("GBK", new byte[]{0x1C, 0x26}),
+    // Latin dasar; FS . keluar dari mode Cina lalu ESC t n
+    CP437("IBM437", new byte[]{0x1C, 0x2E, 0x1B, 0x74, 0}),
+    // CP850 + simbol euro, cocok untuk nama/alamat dengan huruf beraksen
+    CP858("IBM00858", new byte[]{0x1C, 0x2E, 0x1B, 0x74, 19}),
+    // Printer yang mendukung UTF-8 (FS ( C, fn 48, m = 2)
+    UTF_8("UTF-8", new byte[]{0x1C, 0x2E, 0x1C, 0x28, 0x43, 0x02, 0x00, 0x30, 0x02});
+
+    private final String charsetName;
+    private final byte[] selectCommand;
+    private Charset charset;
+
+    PrinterCodepage(String charsetName, byte[] selectCommand) {
+        this.charsetName = charsetName;
+        this.selectCommand = selectCommand;
+    }
+
+    // Di-resolve sekali lalu disimpan; kalau ROM tidak punya charset-nya, pakai CP437 / ASCII
+    public synchronized Charset charset() {
+        if (charset == null) {
+            if (Charset.isSupported(charsetName)) charset = Charset.forName(charsetName);
+            else if (this != CP437) charset = CP437.charset();
+            else charset = Charset.forName("US-ASCII");
+        }
+        return charset;
+    }
+
+    public byte[] selectCommand() {
+        return selectCommand;
+    }
+
+    public static PrinterCodepage byName(String name) {
+        if (name != null) {
+            for (PrinterCodepage cp : values()) if (cp.name().equalsIgnoreCase(name.replace('-', '_'))) return cp;
+        }
+        return GBK;
+    }
+}
@@ -0,0 +1,78 @@
+package com.azzahra.sync;
+
+import android.content.Context;
+import android.util.Log;
+import java.util.List;
+
+// Satu set printer untuk seluruh proses. Koneksi dan thread penulis tetap hidup walau
+// MainActivity dibuat ulang atau aplikasi di background, jadi deep link cetak dari web
+// tidak perlu menyambung dari nol. ForegroundService menjaga koneksinya tetap hangat.
+public final class PrinterHub {
+    private static final String TAG = "PrinterHub";
+    private static PrinterHub instance;
+
+    private final BluetoothPrinterManager primary;
+    private final PrinterPool pool;
+    private final PrintSpool spool;
+    private BulkPrintSession recovery; // sesi yang sedang mencetak sisa spool
+
+    private PrinterHub(Context context) {
+        primary = new BluetoothPrinterManager(context);
+        pool = new PrinterPool(context, primary);
+        spool = PrintSpool.get(context);
+    }
+
+    public static synchronized PrinterHub get(Context context) {
+        if (instance == null) instance = new PrinterHub(context.getApplicationContext());
+        return instance;
+    }
+
+    public BluetoothPrinterManager getPrimary() {
+        return primary;
+    }
+
+    public PrinterPool getPool() {
+        return pool;
+    }
+
+    // Sambung ulang printer yang putus (no-op kalau sudah tersambung / sedang menyambung)
+    public void keepWarm() {
+        pool.autoConnectAll();
+        if (pool.isAnyConnected()) resumeSpool();
+    }
+
+    // Cetak label yang tertinggal di spool (aplikasi dibunuh / printer putus), berurutan.
+    // Dipanggil saat aplikasi dibuka, dari ForegroundService dan setelah boot. Aman dipanggil berulang.
+    public synchronized void resumeSpool() {
+        if (recovery != null) return;
+        List<PrintSpool.SpooledLabel> orphans = spool.claimOrphans();
+        if (orphans.isEmpty()) return;
+        Log.i(TAG, "Melanjutkan " + orphans.size() + " label dari spool");
+        pool.autoConnectAll();
+        BulkPrintSession session = new BulkPrintSession(pool, new BulkPrintSession.ProgressListener() {
+            @Override public void onProgress(int printed, int total) {}
+
+            @Override
+            public void onPaused(int printed, String reason) {
+                // Sisa label tetap di spool, dicoba lagi saat printer tersambung kembali
+                Log.w(TAG, "Resume spool berhenti di label " + printed + ": " + reason);
+                endRecovery(true);
+            }
+
+            @Override
+            public void onFinished(int printed) {
+                Log.i(TAG, "Resume spool selesai: " + printed + " label");
+                endRecovery(false);
+            }
+        });
+        session.setSpool(spool);
+        recovery = session;
+        session.startFromSpool(orphans);
+    }
+
+    private synchronized void endRecovery(boolean abort) {
+        if (recovery == null) return;
+        if (abort) recovery.abort();
+        recovery = null;
+    }
+}
@@ -0,0 +1,204 @@
+package com.azzahra.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Beberapa printer thermal sekaligus (mis. saat event sale). Setiap printer punya koneksi
+// dan thread penulis sendiri; job dibagi ke printer siap dengan antrian terpendek.
+// Kalau satu printer putus di tengah job, job dipindah ke printer lain.
+public class PrinterPool implements BulkPrintSession.JobSink {
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final BluetoothPrinterManager primary;
+    private final List<BluetoothPrinterManager> members = new CopyOnWriteArrayList<>();
+    private volatile BluetoothPrinterManager.PrinterStatusListener listener;
+    private int roundRobin;
+
+    public PrinterPool(Context context, BluetoothPrinterManager primary) {
+        this(context, primary, true);
+    }
+
+    // restoreMembers=false: pool berisi printer utama saja (mis. printer simulasi benchmark)
+    public PrinterPool(Context context, BluetoothPrinterManager primary, boolean restoreMembers) {
+        this.context = context.getApplicationContext();
+        this.prefs = context.getSharedPreferences("PrinterPrefs", Context.MODE_PRIVATE);
+        this.primary = primary;
+        members.add(primary);
+        if (!restoreMembers) return;
+        for (String address : prefs.getStringSet("pool_addresses", new HashSet<>())) {
+            members.add(createMember(address));
+        }
+    }
+
+    // Status printer tambahan (printer utama tetap lewat listener-nya sendiri)
+    public void setListener(BluetoothPrinterManager.PrinterStatusListener listener) {
+        this.listener = listener;
+    }
+
+    public BluetoothPrinterManager getPrimary() {
+        return primary;
+    }
+
+    public List<BluetoothPrinterManager> getMembers() {
+        return members;
+    }
+
+    public synchronized boolean contains(String address) {
+        for (BluetoothPrinterManager m : members) if (address.equals(m.getAddress())) return true;
+        return false;
+    }
+
+    public synchronized void addPrinter(String address) {
+        if (contains(address)) return;
+        BluetoothPrinterManager member = createMember(address);
+        members.add(member);
+        saveAddresses();
+        member.autoConnect();
+    }
+
+    public synchronized void removePrinter(String address) {
+        for (BluetoothPrinterManager m : members) {
+            if (m != primary && address.equals(m.getAddress())) {
+                members.remove(m);
+                // Job yang masih antri di printer ini pindah ke printer lain (sudah tidak ada di members),
+                // lalu thread penulis & executor koneksi dihentikan supaya printer tidak tersambung lagi
+                m.getScheduler().shutdown("Printer dilepas dari pool");
+                m.shutdown();
+            }
+        }
+        saveAddresses();
+    }
+
+    public void autoConnectAll() {
+        for (BluetoothPrinterManager m : members) m.autoConnect();
+    }
+
+    public void setLabelTemplate(String source) {
+        for (BluetoothPrinterManager m : members) m.setLabelTemplate(source);
+    }
+
+    public void setCodepage(PrinterCodepage codepage) {
+        for (BluetoothPrinterManager m : members) m.setCodepage(codepage);
+    }
+
+    public void setPaperWidthDots(int dots) {
+        for (BluetoothPrinterManager m : members) m.setPaperWidthDots(dots);
+    }
+
+    public void resetLabelTemplate() {
+        for (BluetoothPrinterManager m : members) m.resetLabelTemplate();
+    }
+
+    public boolean isAnyConnected() {
+        for (BluetoothPrinterManager m : members) if (m.isConnected()) return true;
+        return false;
+    }
+
+    public PrintJob submit(String text, int priority, PrintJob.Listener jobListener) {
+        return submit(new PrintJob(text, priority, jobListener));
+    }
+
+    // Non-blocking (aman dari UI thread)
+    public PrintJob submit(PrintJob job) {
+        dispatch(job, new ArrayList<>(), -1);
+        return job;
+    }
+
+    // Dengan backpressure: menunggu slot antrian printer terpilih (untuk produser bulk)
+    @Override
+    public boolean submit(PrintJob job, long timeoutMs) throws InterruptedException {
+        return dispatch(job, new ArrayList<>(), timeoutMs);
+    }
+
+    private boolean dispatch(PrintJob job, List<BluetoothPrinterManager> tried, long timeoutMs) {
+        BluetoothPrinterManager target = pick(tried);
+        if (target == null) {
+            job.markFailed(tried.isEmpty() ? "Tidak ada printer" : "Semua printer gagal");
+            return false;
+        }
+        tried.add(target);
+        PrintJob attempt = job.attempt(a -> onAttemptUpdate(job, a, tried));
+        if (timeoutMs < 0) return target.getScheduler().submit(attempt);
+        try {
+            return target.getScheduler().submit(attempt, timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.markFailed("Dibatalkan");
+            return false;
+        }
+    }
+
+    private void onAttemptUpdate(PrintJob job, PrintJob attempt, List<BluetoothPrinterManager> tried) {
+        switch (attempt.getState()) {
+            case PRINTING:
+                job.markPrinting();
+                break;
+            case DONE:
+                job.markDone();
+                break;
+            case CANCELLED:
+                job.markCancelled();
+                break;
+            case FAILED:
+                // Failover: coba printer lain yang belum dicoba (non-blocking, dipanggil dari thread penulis)
+                if (job.isCancelled()) job.markCancelled();
+                else dispatch(job, tried, -1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Printer siap dengan antrian paling sedikit; seri -> bergiliran (round-robin).
+    // Kalau belum ada yang siap, pakai printer utama (job menunggu koneksi di sana).
+    private synchronized BluetoothPrinterManager pick(List<BluetoothPrinterManager> exclude) {
+        BluetoothPrinterManager best = null;
+        int bestDepth = Integer.MAX_VALUE;
+        int n = members.size();
+        for (int i = 0; i < n; i++) {
+            BluetoothPrinterManager m = members.get((roundRobin + i) % n);
+            if (exclude.contains(m) || !m.isConnected() || !m.isPrintable()) continue;
+            int depth = m.getScheduler().getQueueDepth();
+            if (depth < bestDepth) {
+                best = m;
+                bestDepth = depth;
+            }
+        }
+        roundRobin = n == 0 ? 0 : (roundRobin + 1) % n;
+        if (best == null && !exclude.contains(primary)) best = primary;
+        return best;
+    }
+
+    private BluetoothPrinterManager createMember(String address) {
+        BluetoothPrinterManager member = new BluetoothPrinterManager(context, address);
+        member.setListener(status -> {
+            if (listener != null) listener.onStatusChanged(address + ": " + status);
+        });
+        return member;
+    }
+
+    private void saveAddresses() {
+        Set<String> addresses = new HashSet<>();
+        for (BluetoothPrinterManager m : members) if (m != primary) addresses.add(m.getAddress());
+        prefs.edit().putStringSet("pool_addresses", addresses).apply();
+    }
+
+    // Ringkasan untuk tab PRINTER: status + kedalaman antrian per printer
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (BluetoothPrinterManager m : members) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(m == primary ? "★ " : "• ")
+                    .append(m.getAddress() == null ? "-" : m.getAddress())
+                    .append("  ").append(m.getState())
+                    .append(m.isConnected() ? "  " + m.getPrinterStatus().describe() : "")
+                    .append("  antrian: ").append(m.getScheduler().getQueueDepth());
+        }
+        return sb.toString();
+    }
+}
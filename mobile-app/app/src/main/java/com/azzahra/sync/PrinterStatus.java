@@ -0,0 +1,80 @@
+package com.azzahra.sync;
+
+// Status real-time printer hasil balasan DLE EOT n (ESC/POS) + flow control XON/XOFF. Immutable.
+public final class PrinterStatus {
+    // Printer yang tidak membalas DLE EOT dianggap siap (tidak pernah menahan cetak)
+    public static final PrinterStatus UNKNOWN = new PrinterStatus(true, false, false, false, false, false, false);
+
+    public final boolean online;
+    public final boolean coverOpen;
+    public final boolean paperEnd;
+    public final boolean paperNearEnd;
+    public final boolean error;
+    public final boolean bufferFull; // printer mengirim XOFF, tunggu XON
+    public final boolean reported;   // false = belum pernah ada balasan status
+
+    private PrinterStatus(boolean online, boolean coverOpen, boolean paperEnd, boolean paperNearEnd,
+                          boolean error, boolean bufferFull, boolean reported) {
+        this.online = online;
+        this.coverOpen = coverOpen;
+        this.paperEnd = paperEnd;
+        this.paperNearEnd = paperNearEnd;
+        this.error = error;
+        this.bufferFull = bufferFull;
+        this.reported = reported;
+    }
+
+    // Label baru boleh dikirim? (buffer penuh ditangani per potongan data, bukan per label)
+    public boolean isPrintable() {
+        return online && !coverOpen && !paperEnd && !error;
+    }
+
+    // Terapkan satu byte balasan DLE EOT n
+    PrinterStatus apply(int query, int b) {
+        switch (query) {
+            case 1: // status printer: bit 3 = offline
+                return new PrinterStatus((b & 0x08) == 0, coverOpen, paperEnd, paperNearEnd, error, bufferFull, true);
+            case 2: // penyebab offline: bit 2 tutup terbuka, bit 6 error (kertas habis dibaca dari sensor, n = 4)
+                return new PrinterStatus(online, (b & 0x04) != 0, paperEnd, paperNearEnd, (b & 0x40) != 0, bufferFull, true);
+            case 4: // sensor kertas: bit 2-3 hampir habis, bit 5-6 habis
+                return new PrinterStatus(online, coverOpen, (b & 0x60) != 0, (b & 0x0C) != 0, error, bufferFull, true);
+            default:
+                return this;
+        }
+    }
+
+    PrinterStatus withBufferFull(boolean full) {
+        return full == bufferFull ? this : new PrinterStatus(online, coverOpen, paperEnd, paperNearEnd, error, full, reported);
+    }
+
+    public String describe() {
+        if (!reported && !bufferFull) return "Tidak diketahui";
+        if (coverOpen) return "Tutup printer terbuka";
+        if (paperEnd) return "Kertas habis";
+        if (error) return "Printer error";
+        if (!online) return "Printer offline";
+        if (bufferFull) return "Buffer printer penuh";
+        if (paperNearEnd) return "Kertas hampir habis";
+        return "OK";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PrinterStatus)) return false;
+        PrinterStatus s = (PrinterStatus) o;
+        return online == s.online && coverOpen == s.coverOpen && paperEnd == s.paperEnd
+                && paperNearEnd == s.paperNearEnd && error == s.error && bufferFull == s.bufferFull
+                && reported == s.reported;
+    }
+
+    @Override
+    public int hashCode() {
+        return (online ? 1 : 0) | (coverOpen ? 2 : 0) | (paperEnd ? 4 : 0) | (paperNearEnd ? 8 : 0)
+                | (error ? 16 : 0) | (bufferFull ? 32 : 0) | (reported ? 64 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+}
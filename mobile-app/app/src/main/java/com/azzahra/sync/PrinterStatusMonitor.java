@@ -0,0 +1,124 @@
+package com.azzahra.sync;
+
+import android.util.Log;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+
+// Thread pembaca jalur balik printer (satu per koneksi). Mengurai balasan DLE EOT n dan XON/XOFF.
+// Balasan DLE EOT tidak membawa nomor query, jadi dicocokkan berurutan dengan query yang dikirim.
+class PrinterStatusMonitor {
+    private static final String TAG = "PrinterStatus";
+    private static final int XON = 0x11;
+    private static final int XOFF = 0x13;
+    private static final int MAX_PENDING = 12; // lebih dari ini tanpa balasan = printer tidak mendukung DLE EOT
+
+    interface Callback {
+        void onStatus(PrinterStatus status);
+    }
+
+    private final InputStream in;
+    private final Callback callback;
+    private final ArrayDeque<Integer> pending = new ArrayDeque<>();
+    private PrinterStatus status = PrinterStatus.UNKNOWN;
+    private boolean queriesSupported = true;
+    private boolean running = true;
+
+    PrinterStatusMonitor(InputStream in, Callback callback) {
+        this.in = in;
+        this.callback = callback;
+    }
+
+    void start() {
+        Thread t = new Thread(this::readLoop, "PrinterStatusReader");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    synchronized PrinterStatus getStatus() {
+        return status;
+    }
+
+    synchronized boolean isRunning() {
+        return running;
+    }
+
+    // Daftarkan query SEBELUM byte-nya dikirim (balasan bisa datang lebih cepat dari return write).
+    // Return false kalau printer ini tidak pernah membalas, jadi query tidak perlu dikirim lagi.
+    synchronized boolean beginQueries(byte[] queries) {
+        if (!queriesSupported) return false;
+        if (pending.size() + queries.length / 3 > MAX_PENDING) {
+            Log.w(TAG, "Printer tidak membalas DLE EOT, polling status dimatikan");
+            queriesSupported = false;
+            pending.clear();
+            return false;
+        }
+        for (int i = 2; i < queries.length; i += 3) pending.add((int) queries[i]);
+        return true;
+    }
+
+    // Tunggu sampai printer siap menerima data lagi (XON). Return false kalau timeout / koneksi berakhir.
+    synchronized boolean awaitWritable(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (running && status.bufferFull) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) return false;
+            wait(remaining);
+        }
+        return running;
+    }
+
+    // Tunggu sampai semua query terkirim sudah dibalas. Return false kalau timeout / koneksi berakhir.
+    synchronized boolean awaitReplies(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (running && !pending.isEmpty()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) return false;
+            wait(remaining);
+        }
+        return running;
+    }
+
+    // Tunggu balasan status berikutnya (atau timeout)
+    synchronized void awaitChange(long timeoutMs) throws InterruptedException {
+        if (running) wait(timeoutMs);
+    }
+
+    void stop() {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+    }
+
+    private void readLoop() {
+        try {
+            int b;
+            while ((b = in.read()) >= 0) handle(b);
+        } catch (IOException e) {
+            // Socket ditutup: koneksi berakhir
+        } finally {
+            stop();
+        }
+    }
+
+    private void handle(int b) {
+        PrinterStatus changed = null;
+        synchronized (this) {
+            PrinterStatus next = status;
+            if (b == XOFF) {
+                next = status.withBufferFull(true);
+            } else if (b == XON) {
+                next = status.withBufferFull(false);
+            } else if ((b & 0x93) == 0x12) { // format tetap balasan DLE EOT: bit 1 & 4 = 1, bit 0 & 7 = 0
+                Integer query = pending.poll();
+                if (query != null) next = status.apply(query, b);
+            }
+            if (!next.equals(status)) changed = next;
+            status = next;
+            notifyAll();
+        }
+        // Callback di luar lock
+        if (changed != null) callback.onStatus(changed);
+    }
+}
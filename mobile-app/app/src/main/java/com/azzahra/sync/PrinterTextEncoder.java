@@ -0,0 +1,61 @@
+package com.azzahra.sync;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+// Encoder teks ke byte printer yang dipakai ulang: CharsetEncoder, buffer char dan buffer byte
+// dibuat sekali per codepage, jadi encode satu label tidak mencari charset berdasarkan nama
+// dan tidak membuat byte[] baru seperti String.getBytes. Tidak thread-safe (milik thread penulis).
+public final class PrinterTextEncoder {
+    private static final int CHUNK = 512;
+
+    private final PrinterCodepage codepage;
+    private final CharsetEncoder encoder;
+    private final char[] chars = new char[CHUNK];
+    private final CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private final ByteBuffer byteBuffer;
+
+    public PrinterTextEncoder(PrinterCodepage codepage) {
+        this.codepage = codepage;
+        this.encoder = codepage.charset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .replaceWith(new byte[]{'?'});
+        this.byteBuffer = ByteBuffer.allocate((int) Math.ceil(CHUNK * encoder.maxBytesPerChar()) + 8);
+    }
+
+    public PrinterCodepage getCodepage() {
+        return codepage;
+    }
+
+    // Encode text lalu tambahkan ke out. Return jumlah byte yang ditambahkan.
+    public int encode(CharSequence text, EscPosBuffer out) {
+        int before = out.size();
+        encoder.reset();
+        int n = text.length();
+        int pos = 0;
+        int carry = 0; // high surrogate yang terpotong di batas chunk
+        while (pos < n || carry > 0) {
+            int count = carry;
+            while (count < CHUNK && pos < n) chars[count++] = text.charAt(pos++);
+            boolean last = pos >= n;
+            charBuffer.clear();
+            charBuffer.limit(count);
+            byteBuffer.clear();
+            CoderResult result = encoder.encode(charBuffer, byteBuffer, last);
+            if (last) encoder.flush(byteBuffer);
+            out.append(byteBuffer.array(), 0, byteBuffer.position());
+            if (result.isOverflow()) throw new IllegalStateException("Buffer encoder terlalu kecil");
+            // Sisa char yang belum terpakai (surrogate pair terbelah) dipindah ke depan
+            carry = charBuffer.remaining();
+            if (carry > 0) {
+                if (last) break;
+                System.arraycopy(chars, charBuffer.position(), chars, 0, carry);
+            }
+        }
+        return out.size() - before;
+    }
+}
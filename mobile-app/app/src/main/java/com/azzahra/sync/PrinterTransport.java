@@ -0,0 +1,28 @@
+package com.azzahra.sync;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Jalur byte ke printer ESC/POS. BluetoothPrinterManager tidak peduli printer
+// tersambung lewat Bluetooth SPP, LAN (port 9100) atau loopback untuk benchmark.
+public interface PrinterTransport {
+    String SCHEME_TCP = "tcp://";
+    String SCHEME_LOOPBACK = "loopback://";
+    int DEFAULT_TCP_PORT = 9100;
+
+    // Blocking: buka koneksi (panggil dari background thread)
+    void open() throws IOException;
+
+    boolean isOpen();
+
+    OutputStream getOutputStream() throws IOException;
+
+    InputStream getInputStream() throws IOException;
+
+    void close();
+
+    interface Factory {
+        PrinterTransport create(String address);
+    }
+}
@@ -0,0 +1,163 @@
+package com.azzahra.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Sesi login + role user (users/{uid}.role) untuk seluruh proses: LoginActivity, MainActivity, NotificationService.
+// Role disimpan di prefs dan dibaca sinkron (getRole), diperbarui lewat SATU snapshot listener.
+// Pemanggil yang butuh role sebelum pernah termuat menunggu snapshot pertama yang sama (single-flight).
+// Logout (dari mana pun) menghapus role & melepas listener.
+public final class SessionRepository {
+    private static final String TAG = "Session";
+    private static final String PREF_UID = "session_uid";
+    private static final String PREF_ROLE = "session_role";
+    // Ditulis bersama role dari snapshot; uid saja tidak cukup (uid baru disimpan sebelum role termuat)
+    private static final String PREF_ROLE_LOADED = "session_role_loaded";
+    public static final String ROLE_OWNER = "owner";
+    public static final String ROLE_ADMIN = "admin";
+
+    // role null + error null = dokumen user tidak ada
+    public interface RoleCallback {
+        void onRole(String role, Exception error);
+    }
+
+    private static SessionRepository instance;
+
+    private final SharedPreferences prefs;
+    private final List<RoleCallback> waiters = new ArrayList<>();
+    private String uid;      // pemilik role di bawah
+    private String role;
+    private boolean loaded;  // role untuk uid sudah pernah terbaca (prefs atau server)
+    private ListenerRegistration registration;
+    private String listeningUid;
+
+    private SessionRepository(Context context) {
+        prefs = context.getSharedPreferences("AzzahraPrefs", Context.MODE_PRIVATE);
+        uid = prefs.getString(PREF_UID, null);
+        role = prefs.getString(PREF_ROLE, null);
+        loaded = uid != null && prefs.getBoolean(PREF_ROLE_LOADED, false);
+        FirebaseAuth.getInstance().addAuthStateListener(auth -> onAuthChanged(auth.getCurrentUser()));
+    }
+
+    public static synchronized SessionRepository get(Context context) {
+        if (instance == null) instance = new SessionRepository(context.getApplicationContext());
+        return instance;
+    }
+
+    // Sinkron, tanpa jaringan. null kalau belum login / role belum pernah termuat / user tidak punya role.
+    public synchronized String getRole() {
+        return isRoleKnown() ? role : null;
+    }
+
+    // Auth yang sesaat null (proses baru start, token di-refresh) tetap memakai role tersimpan:
+    // logout sungguhan menghapus uid lewat onAuthChanged(null)
+    public synchronized boolean isRoleKnown() {
+        String current = FirebaseAuth.getInstance().getUid();
+        return uid != null && (current == null || current.equals(uid)) && loaded;
+    }
+
+    public boolean isOwner() {
+        return ROLE_OWNER.equalsIgnoreCase(getRole());
+    }
+
+    // Kalau role sudah diketahui (atau belum login), callback langsung dipanggil di thread pemanggil.
+    // Kalau belum, callback menunggu snapshot pertama dan dipanggil di main thread.
+    public void load(RoleCallback callback) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            callback.onRole(null, new IllegalStateException("Belum login"));
+            return;
+        }
+        String known = null;
+        boolean ready;
+        synchronized (this) {
+            ready = user.getUid().equals(uid) && loaded;
+            if (ready) known = role;
+            else waiters.add(callback);
+        }
+        onAuthChanged(user); // pasang listener kalau belum (mis. setelah error)
+        if (ready) callback.onRole(known, null);
+    }
+
+    public void signOut() {
+        FirebaseAuth.getInstance().signOut();
+        onAuthChanged(null);
+    }
+
+    private void onAuthChanged(FirebaseUser user) {
+        List<RoleCallback> cancelled = null;
+        synchronized (this) {
+            String newUid = user != null ? user.getUid() : null;
+            if (newUid == null) {
+                if (uid == null && registration == null) return;
+                stopListening();
+                uid = null;
+                role = null;
+                loaded = false;
+                prefs.edit().remove(PREF_UID).remove(PREF_ROLE).remove(PREF_ROLE_LOADED).apply();
+                cancelled = takeWaiters();
+                Log.i(TAG, "Logout: role dihapus");
+            } else {
+                if (!newUid.equals(uid)) {
+                    uid = newUid;
+                    role = null;
+                    loaded = false;
+                    prefs.edit().putString(PREF_UID, newUid).remove(PREF_ROLE).remove(PREF_ROLE_LOADED).apply();
+                }
+                if (newUid.equals(listeningUid)) return;
+                stopListening();
+                listeningUid = newUid;
+                registration = FirebaseFirestore.getInstance().collection("users").document(newUid)
+                        .addSnapshotListener((snap, e) -> onSnapshot(newUid, snap, e));
+            }
+        }
+        if (cancelled != null) {
+            for (RoleCallback cb : cancelled) cb.onRole(null, new IllegalStateException("Sesi berakhir"));
+        }
+    }
+
+    private void onSnapshot(String forUid, DocumentSnapshot snap, Exception error) {
+        List<RoleCallback> done;
+        String result;
+        synchronized (this) {
+            if (!forUid.equals(uid)) return;
+            if (error != null) {
+                Log.w(TAG, "Gagal memuat role: " + error.getMessage());
+                // Listener Firestore mati setelah error; dipasang lagi pada load() berikutnya
+                stopListening();
+                // Role lama tetap dipakai; yang menunggu role pertama diberi tahu gagal
+                if (loaded) return;
+                done = takeWaiters();
+            } else {
+                // Dokumen belum ada di cache offline: tunggu jawaban server, jangan anggap user tidak ada
+                if (!snap.exists() && snap.getMetadata().isFromCache()) return;
+                role = snap.exists() ? snap.getString("role") : null;
+                loaded = true;
+                prefs.edit().putString(PREF_ROLE, role).putBoolean(PREF_ROLE_LOADED, true).apply();
+                done = takeWaiters();
+            }
+            result = role;
+        }
+        for (RoleCallback cb : done) cb.onRole(error != null ? null : result, error);
+    }
+
+    private List<RoleCallback> takeWaiters() {
+        List<RoleCallback> out = new ArrayList<>(waiters);
+        waiters.clear();
+        return out;
+    }
+
+    private void stopListening() {
+        if (registration != null) registration.remove();
+        registration = null;
+        listeningUid = null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.azzahra.sync;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+// Printer ESC/POS jaringan (raw TCP, biasanya port 9100), mis. printer Ethernet di meja packing
+public class TcpTransport implements PrinterTransport {
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+
+    private final String host;
+    private final int port;
+    private volatile Socket socket;
+
+    public TcpTransport(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    // "tcp://192.168.1.50:9100" atau "tcp://192.168.1.50"
+    public static TcpTransport parse(String address) {
+        String hostPort = address.substring(SCHEME_TCP.length());
+        int colon = hostPort.lastIndexOf(':');
+        if (colon < 0) return new TcpTransport(hostPort, DEFAULT_TCP_PORT);
+        return new TcpTransport(hostPort.substring(0, colon), Integer.parseInt(hostPort.substring(colon + 1)));
+    }
+
+    @Override
+    public void open() throws IOException {
+        Socket s = new Socket();
+        try {
+            s.setTcpNoDelay(true);
+            s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+        } catch (IOException e) {
+            try { s.close(); } catch (IOException ignored) {}
+            throw new IOException("Printer LAN " + host + ":" + port + " tidak terjangkau");
+        }
+        socket = s;
+    }
+
+    @Override
+    public boolean isOpen() {
+        Socket s = socket;
+        return s != null && s.isConnected() && !s.isClosed();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return socket.getOutputStream();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return socket.getInputStream();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (socket != null) socket.close();
+        } catch (Exception ignored) {}
+        socket = null;
+    }
+}
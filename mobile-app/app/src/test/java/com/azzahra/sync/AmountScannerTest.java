@@ -0,0 +1,176 @@
+package com.azzahra.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class AmountScannerTest {
+
+    // Contoh notifikasi asli per aplikasi (nama & nomor rekening diganti), dengan nominal yang diharapkan
+    private static final Object[][] SAMPLES = {
+            {"BCA", "m-BCA: Dana masuk Rp 150.250,00 dari BUDI SANTOSO ke rek 1234567890", 150250L},
+            {"BCA", "KlikBCA Kredit IDR 1,250,000.00 13/10 TRSF E-BANKING CR", 1250000L},
+            {"Mandiri", "Terima transfer Rp125.500 dari ANDI WIJAYA via BI-FAST", 125500L},
+            {"Mandiri", "Livin': Uang masuk sebesar Rp 2.150.075,00 ke rekening ****4321", 2150075L},
+            {"BRI", "BRImo: Transaksi Kredit IDR 1,250,000.00 berhasil. Saldo IDR 5,400,300.00", 1250000L},
+            {"BNI", "BNI: Dana masuk sebesar IDR 75.000,00 ke rekening 0123456789", 75000L},
+            {"BSI", "BSI Mobile: Transfer masuk Rp.250.350 dari SITI AMINAH", 250350L},
+            {"DANA", "Kamu menerima Rp49.999 dari 0812****5678", 49999L},
+            {"OVO", "Kamu menerima OVO Cash Rp 20.500 dari Siti", 20500L},
+            {"GoPay", "Pembayaran masuk Rp 25.100 dari pelanggan", 25100L},
+            {"ShopeePay", "Saldo ShopeePay bertambah 37.700 dari transfer", 37700L},
+            {"Generik", "Transfer masuk 150250 dari rek 9988", 150250L},
+            {"Generik", "Login berhasil pada perangkat baru", 0L},
+    };
+
+    @Test
+    public void extractsAmountFromBankSamples() {
+        for (Object[] s : SAMPLES) {
+            assertEquals(s[0] + ": " + s[1], (long) (Long) s[2], AmountScanner.extract((String) s[1]));
+        }
+    }
+
+    @Test
+    public void currencyPrefixIsCaseInsensitiveAndAllowsSpaces() {
+        assertEquals(150000, AmountScanner.extract("RP 150.000"));
+        assertEquals(150000, AmountScanner.extract("rp150.000"));
+        assertEquals(150000, AmountScanner.extract("Idr\t150,000"));
+        // NBSP setelah "Rp" (sering muncul di notifikasi yang diformat NumberFormat)
+        assertEquals(150000, AmountScanner.extract("Rp 150.000"));
+    }
+
+    @Test
+    public void thousandSeparatorsAndCents() {
+        assertEquals(1250000, AmountScanner.extract("masuk 1.250.000"));
+        assertEquals(1250000, AmountScanner.extract("masuk 1,250,000"));
+        assertEquals(1250000, AmountScanner.extract("Rp 1.250.000,00"));
+        assertEquals(1250000, AmountScanner.extract("IDR 1,250,000.00"));
+        // Sen selain 00 tidak dibuang (perilaku lama): ikut jadi digit
+        assertEquals(125000050, AmountScanner.extract("Rp 1.250.000,50"));
+        // Pengelompokan didahulukan dari angka polos yang muncul lebih awal
+        assertEquals(20500, AmountScanner.extract("Ref 99887766 nominal 20.500"));
+    }
+
+    @Test
+    public void plainNumberNeedsWordBoundaryAndLength() {
+        assertEquals(0, AmountScanner.extract("kode 123"));
+        assertEquals(0, AmountScanner.extract("ref ABC12345"));
+        assertEquals(0, AmountScanner.extract("trx 1234567890123"));
+        assertEquals(123456789012L, AmountScanner.extract("trx 123456789012"));
+    }
+
+    @Test
+    public void overflowReturnsZero() {
+        assertEquals(0, AmountScanner.extract("Rp 99.999.999.999.999.999.999"));
+        assertEquals(0, AmountScanner.extract("IDR 9223372036854775808"));
+        assertEquals(Long.MAX_VALUE, AmountScanner.extract("IDR 9223372036854775807"));
+    }
+
+    @Test
+    public void rangeIsTreatedAsWholeText() {
+        String text = "Saldo Rp 2.000.000. Dana masuk 150.250";
+        int start = text.indexOf("Dana");
+        assertEquals(150250, AmountScanner.extract(text, start, text.length()));
+        assertEquals(2000000, AmountScanner.extract(text, 0, start));
+        // Batas kata dihitung dari awal range, bukan dari karakter sebelumnya
+        assertEquals(12345, AmountScanner.extract("ab12345", 2, 7));
+    }
+
+    // ---- Pembanding: ekstraktor regex lama dari NotificationService ----
+
+    // UNICODE_CHARACTER_CLASS: \s dan \b seperti regex ICU di Android
+    private static final Pattern P1 = Pattern.compile("(rp|idr)\\s*([0-9.,]+)", Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern P2 = Pattern.compile("([0-9]{1,3}([.,][0-9]{3})+)", Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern P3 = Pattern.compile("\\b[0-9]{4,12}\\b", Pattern.UNICODE_CHARACTER_CLASS);
+
+    static long legacyExtract(String text) {
+        String low = text.toLowerCase(Locale.ROOT);
+        try {
+            Matcher m1 = P1.matcher(low);
+            if (m1.find()) return legacyParse(m1.group(2));
+            Matcher m2 = P2.matcher(low);
+            if (m2.find()) return legacyParse(m2.group());
+            Matcher m3 = P3.matcher(low);
+            if (m3.find()) return legacyParse(m3.group());
+        } catch (Exception e) {
+            // sama seperti versi lama: parseLong gagal -> 0
+        }
+        return 0;
+    }
+
+    private static long legacyParse(String raw) {
+        if (raw.endsWith(".00") || raw.endsWith(",00")) raw = raw.substring(0, raw.length() - 3);
+        String clean = raw.replaceAll("[^0-9]", "");
+        return clean.isEmpty() ? 0 : Long.parseLong(clean);
+    }
+
+    @Test
+    public void matchesLegacyRegexOnSamples() {
+        for (Object[] s : SAMPLES) {
+            String text = (String) s[1];
+            assertEquals(text, legacyExtract(text), AmountScanner.extract(text));
+        }
+        // Termasuk kebiasaan lama: "Rp. 10.000" berhenti di titik setelah Rp -> 0
+        String[] quirks = {"Rp. 10.000", "Rp,", "idr", "Rp 1.0.0", "12.345.6789", "1,234x", "_1234_ 5678"};
+        for (String text : quirks) assertEquals(text, legacyExtract(text), AmountScanner.extract(text));
+    }
+
+    // Korpus acak dari potongan notifikasi: hasilnya harus sama persis dengan regex lama
+    @Test
+    public void matchesLegacyRegexOnFuzzedCorpus() {
+        String[] pieces = {"Rp", "rp", "IDR", "idr", " ", "\t", " ", ".", ",", "00", "000", "1", "25", "150",
+                "4321", "99999999999", "masuk", "saldo", "_", "a", "R", "p", "i", "d", "x9", "\n"};
+        Random random = new Random(20240601);
+        for (int round = 0; round < 200000; round++) {
+            StringBuilder sb = new StringBuilder();
+            int parts = 1 + random.nextInt(12);
+            for (int i = 0; i < parts; i++) sb.append(pieces[random.nextInt(pieces.length)]);
+            String text = sb.toString();
+            assertEquals("'" + text + "'", legacyExtract(text), AmountScanner.extract(text));
+        }
+    }
+
+    // Benchmark kasar vs regex lama (yang juga compile pola tiap panggilan): hanya dilaporkan,
+    // tidak menggagalkan build karena waktu di mesin CI bersama tidak stabil
+    @Test
+    public void benchmarkAgainstLegacyRegex() {
+        String[] texts = new String[SAMPLES.length];
+        for (int i = 0; i < texts.length; i++) texts[i] = (String) SAMPLES[i][1];
+        long sink = 0;
+        for (int i = 0; i < 20000; i++) {
+            sink += AmountScanner.extract(texts[i % texts.length]);
+            sink += legacyExtractCompiling(texts[i % texts.length]);
+        }
+        int iterations = 100000;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) sink += AmountScanner.extract(texts[i % texts.length]);
+        long scannerNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) sink += legacyExtractCompiling(texts[i % texts.length]);
+        long regexNanos = System.nanoTime() - start;
+        System.out.println(String.format(Locale.US, "AmountScanner %d ns/notif, regex lama %d ns/notif (%d)",
+                scannerNanos / iterations, regexNanos / iterations, sink & 1));
+        assertTrue(scannerNanos > 0 && regexNanos > 0);
+    }
+
+    // Persis seperti kode lama: Pattern.compile di setiap panggilan
+    private static long legacyExtractCompiling(String text) {
+        String low = text.toLowerCase();
+        try {
+            Matcher m1 = Pattern.compile("(rp|idr)\\s*([0-9.,]+)").matcher(low);
+            if (m1.find()) return legacyParse(m1.group(2));
+            Matcher m2 = Pattern.compile("([0-9]{1,3}([.,][0-9]{3})+)").matcher(low);
+            if (m2.find()) return legacyParse(m2.group());
+            Matcher m3 = Pattern.compile("\\b[0-9]{4,12}\\b").matcher(low);
+            if (m3.find()) return legacyParse(m3.group());
+        } catch (Exception e) {
+            // parseLong gagal -> 0
+        }
+        return 0;
+    }
+}
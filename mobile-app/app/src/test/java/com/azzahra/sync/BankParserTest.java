@@ -0,0 +1,121 @@
+package com.azzahra.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BankParserTest {
+    private static final int AMOUNT = BankParser.RESULT_AMOUNT;
+    private static final int IGNORED = BankParser.RESULT_IGNORED;
+    private static final int NOT_INCOMING = BankParser.RESULT_NOT_INCOMING;
+    private static final int NO_AMOUNT = BankParser.RESULT_NO_AMOUNT;
+
+    // {paket, judul + isi notifikasi, status, nominal}. Contoh dari notifikasi asli (nama & rekening diganti).
+    private static final Object[][] SAMPLES = {
+            {"com.bca", "m-BCA Dana masuk Rp 150.250,00 dari BUDI SANTOSO. Saldo Rp 2.000.000,00", AMOUNT, 150250L},
+            {"com.bca", "m-BCA Saldo Rp 2.000.000,00. Dana masuk Rp 150.250,00 dari BUDI SANTOSO", AMOUNT, 150250L},
+            {"com.bca", "m-BCA Debit Rp 50.000 ke 1234567890, dana masuk ke rekening tujuan", IGNORED, 0L},
+            {"com.bca", "m-BCA Dana masuk. Cek mutasi untuk detail", NO_AMOUNT, 0L},
+            {"id.bmri.livin", "Livin' by Mandiri Terima transfer Rp125.500 dari ANDI WIJAYA via BI-FAST", AMOUNT, 125500L},
+            {"id.bmri.livin", "Livin' by Mandiri Uang masuk Rp 2.150.075,00 ke rekening ****4321", AMOUNT, 2150075L},
+            {"id.bmri.livin", "Livin' by Mandiri Uang keluar Rp 300.000 ke ****9876", IGNORED, 0L},
+            {"id.co.bri.brimo", "BRImo Transaksi Kredit IDR 1,250,000.00 berhasil masuk. Saldo IDR 5,400,300.00", AMOUNT, 1250000L},
+            {"id.bni.wondr", "wondr by BNI Dana masuk sebesar IDR 75.000,00 ke rekening 0123456789", AMOUNT, 75000L},
+            {"com.bsm.activity2", "BSI Mobile Transfer masuk Rp.250.350 dari SITI AMINAH", AMOUNT, 250350L},
+            {"id.dana", "DANA Kamu menerima Rp49.999 dari 0812****5678. Sisa saldo Rp 1.250.000", AMOUNT, 49999L},
+            {"id.dana", "DANA Pembayaran ke ALFAMART Rp 15.500 berhasil, poin masuk", IGNORED, 0L},
+            {"ovo.id", "OVO Kamu menerima OVO Cash Rp 20.500 dari Siti", AMOUNT, 20500L},
+            {"ovo.id", "OVO Pembayaran masuk Rp 25.100 dari pelanggan QRIS", AMOUNT, 25100L},
+            {"ovo.id", "OVO Pembayaran ke Kopi Kenangan Rp 32.000 berhasil, poin masuk", IGNORED, 0L},
+            {"com.gojek.gopay", "GoPay Pembayaran masuk Rp 25.100 dari pelanggan", AMOUNT, 25100L},
+            {"com.gojek.app", "GoPay Merchant Pembayaran diterima Rp 48.300 via QRIS", AMOUNT, 48300L},
+            {"com.gojek.gopay", "GoPay Kamu berhasil bayar Rp 18.000 ke Warung Bu Sri, cashback masuk", IGNORED, 0L},
+            {"com.gojek.gopay", "GoPay Promo! Cashback masuk s.d. Rp 10.000", IGNORED, 0L},
+            {"com.shopee.id", "Shopee Penghasilan pesanan 2410ABC Rp37.700 sudah masuk ke Saldo Penjual", AMOUNT, 37700L},
+            {"com.shopee.id", "ShopeePay Dana diterima Rp 21.300 dari Transfer Bank", AMOUNT, 21300L},
+            {"com.shopee.id", "ShopeePay Pembayaran pesanan 2410XYZ Rp 52.000 berhasil, koin masuk", IGNORED, 0L},
+            {"com.shopee.id", "ShopeePay Voucher diskon Rp 20.000 masuk ke akunmu", IGNORED, 0L},
+            {"com.example.bank", "Notifikasi Pemasukan 150250 dari rek 9988", AMOUNT, 150250L},
+            {"com.example.bank", "Info Transfer keluar Rp 10.000 berhasil", NOT_INCOMING, 0L},
+    };
+
+    private static final Map<String, BankParser> byPackage = new HashMap<>();
+    // Sama dengan BankParserRegistry.GENERIC
+    private static final BankParser GENERIC = new BankParser("Generik", new String[0],
+            new String[]{"masuk", "pemasukan"}, new String[0], new String[0]);
+
+    @BeforeClass
+    public static void compileDefaults() throws Exception {
+        JSONArray arr = new JSONObject(BankParserRegistry.DEFAULT_SOURCE).optJSONArray("parsers");
+        for (int i = 0; i < arr.length(); i++) {
+            BankParser p = BankParser.fromJson(arr.getJSONObject(i));
+            for (String pkg : p.getPackages()) byPackage.put(pkg, p);
+        }
+    }
+
+    private static BankParser.Result parse(String pkg, String text) {
+        BankParser p = byPackage.get(pkg);
+        BankParser.Result r = new BankParser.Result();
+        (p != null ? p : GENERIC).parse(text, text.toLowerCase(Locale.ROOT), r);
+        return r;
+    }
+
+    @Test
+    public void parsesBankSamples() {
+        for (Object[] s : SAMPLES) {
+            BankParser.Result r = parse((String) s[0], (String) s[1]);
+            assertEquals(s[0] + ": " + s[1], (int) (Integer) s[2], r.status);
+            assertEquals(s[0] + ": " + s[1], (long) (Long) s[3], r.amount);
+        }
+    }
+
+    // Parser lama: kata "masuk"/"pemasukan" + nominal pertama di teks, tanpa melihat paket
+    private static boolean legacyDetects(String text) {
+        String low = text.toLowerCase(Locale.ROOT);
+        return (low.contains("masuk") || low.contains("pemasukan")) && AmountScannerTest.legacyExtract(text) > 0;
+    }
+
+    // Yang dulu terdeteksi tetap terdeteksi, kecuali yang memang sengaja dibuang aturan bank (uang keluar, promo)
+    @Test
+    public void noIncomingDetectionIsLostComparedToLegacy() {
+        int legacyHits = 0;
+        for (Object[] s : SAMPLES) {
+            String text = (String) s[1];
+            if (!legacyDetects(text)) continue;
+            legacyHits++;
+            BankParser.Result r = parse((String) s[0], text);
+            if ((Integer) s[2] == IGNORED) continue;
+            assertEquals(s[0] + ": " + text, AMOUNT, r.status);
+            assertTrue(s[0] + ": " + text, r.amount > 0);
+        }
+        assertTrue(legacyHits > 10);
+    }
+
+    // Notifikasi merchant "Pembayaran masuk" / "pesanan" dulu dibuang oleh kata abaikan yang terlalu luas
+    @Test
+    public void merchantIncomingPaymentsAreNotIgnored() {
+        assertEquals(25100, parse("ovo.id", "OVO Pembayaran masuk Rp 25.100").amount);
+        assertEquals(25100, parse("com.gojek.gopay", "GoPay Pembayaran masuk Rp 25.100").amount);
+        assertEquals(37700, parse("com.shopee.id", "Shopee Dana pesanan Rp 37.700 masuk").amount);
+    }
+
+    @Test
+    public void everyDefaultPackageHasASample() {
+        for (String pkg : byPackage.keySet()) {
+            boolean found = false;
+            for (Object[] s : SAMPLES) found |= pkg.equals(s[0]);
+            if (!found && (pkg.equals("com.bca.mybca.omni.android") || pkg.equals("com.bankmandiri.mandirionline")
+                    || pkg.equals("src.com.bni"))) continue; // paket lama, aturan sama dengan paket di atas
+            assertTrue("Tidak ada contoh untuk " + pkg, found);
+        }
+        assertNotNull(byPackage.get("com.gojek.app"));
+    }
+}
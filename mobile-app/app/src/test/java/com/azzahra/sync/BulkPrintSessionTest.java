@@ -0,0 +1,134 @@
+package com.azzahra.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class BulkPrintSessionTest {
+    private static final long WAIT_MS = 2000;
+
+    // Pengganti PrinterPool: job diterima, status diatur manual dari test
+    private static class RecordingSink implements BulkPrintSession.JobSink {
+        final LinkedBlockingQueue<PrintJob> submitted = new LinkedBlockingQueue<>();
+        final List<String> history = new ArrayList<>();
+
+        @Override
+        public synchronized boolean submit(PrintJob job, long timeoutMs) {
+            history.add(job.getText());
+            submitted.add(job);
+            return true;
+        }
+
+        PrintJob next() throws InterruptedException {
+            PrintJob job = submitted.poll(WAIT_MS, TimeUnit.MILLISECONDS);
+            if (job == null) throw new AssertionError("Tidak ada job yang dikirim");
+            return job;
+        }
+
+        synchronized int count(String text) {
+            int n = 0;
+            for (String t : history) if (t.equals(text)) n++;
+            return n;
+        }
+    }
+
+    private static class Progress implements BulkPrintSession.ProgressListener {
+        final CountDownLatch paused = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicInteger printed = new AtomicInteger(-1);
+
+        @Override public void onProgress(int printed, int total) {}
+        @Override public void onPaused(int printed, String reason) { paused.countDown(); }
+        @Override public void onFinished(int printed) {
+            this.printed.set(printed);
+            finished.countDown();
+        }
+    }
+
+    private static List<PrintSpool.SpooledLabel> labels(String... texts) {
+        List<PrintSpool.SpooledLabel> out = new ArrayList<>();
+        for (String t : texts) out.add(new PrintSpool.SpooledLabel(0, null, t));
+        return out;
+    }
+
+    // Printer A masih mencetak label 0 saat printer B gagal di label 1:
+    // setelah resume, label 0 tidak boleh dikirim ulang, label 1 & 2 dikirim lagi
+    @Test
+    public void resumeDoesNotReprintLabelStillPrintingOnOtherPrinter() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        Progress progress = new Progress();
+        BulkPrintSession session = new BulkPrintSession(sink, progress);
+        session.startFromSpool(labels("L0", "L1", "L2"));
+
+        PrintJob l0 = sink.next();
+        PrintJob l1 = sink.next();
+        PrintJob l2 = sink.next();
+        assertEquals("L0", l0.getText());
+        assertEquals("L1", l1.getText());
+        assertEquals("L2", l2.getText());
+
+        l0.markPrinting();
+        l1.markFailed("Printer B putus");
+        assertTrue(progress.paused.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(session.isPaused());
+        assertTrue("label setelah yang gagal harus dibatalkan", l2.isCancelled());
+
+        session.resume();
+        PrintJob l1Again = sink.next();
+        assertEquals("L1", l1Again.getText());
+        // Pembatalan L2 baru diproses thread penulis setelah resume
+        l2.markCancelled();
+        PrintJob l2Again = sink.next();
+        assertEquals("L2", l2Again.getText());
+
+        l0.markDone();
+        l1Again.markDone();
+        l2Again.markDone();
+        assertTrue(progress.finished.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(3, progress.printed.get());
+        assertEquals(1, sink.count("L0"));
+        assertEquals(2, sink.count("L1"));
+        assertEquals(2, sink.count("L2"));
+        assertNull(sink.submitted.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    // Label di bawah index gagal yang ikut gagal setelah resume tetap dicetak ulang
+    @Test
+    public void labelFailingAfterResumeIsRetriedOnNextResume() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        Progress progress = new Progress();
+        BulkPrintSession session = new BulkPrintSession(sink, progress);
+        session.startFromSpool(labels("L0", "L1"));
+
+        PrintJob l0 = sink.next();
+        PrintJob l1 = sink.next();
+        l0.markPrinting();
+        l1.markFailed("Printer B putus");
+        assertTrue(progress.paused.await(WAIT_MS, TimeUnit.MILLISECONDS));
+
+        session.resume();
+        PrintJob l1Again = sink.next();
+        assertEquals("L1", l1Again.getText());
+        l1Again.markDone();
+        // Printer A ikut putus di tengah label 0
+        l0.markFailed("Printer A putus");
+        assertTrue(session.isPaused());
+        session.resume();
+        PrintJob l0Again = sink.next();
+        assertEquals("L0", l0Again.getText());
+        l0Again.markDone();
+
+        assertTrue(progress.finished.await(WAIT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(2, progress.printed.get());
+        assertEquals(2, sink.count("L0"));
+        assertEquals(2, sink.count("L1"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.azzahra.sync;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.Charset;
+import org.junit.Test;
+
+public class EscPosBufferTest {
+    private static final int HEADER = 9; // GS h, GS w, GS H
+
+    // Data barcode setelah GS k 73 n: {n, byte...}, tanpa LF penutup
+    private static String code128(String data) {
+        EscPosBuffer buffer = new EscPosBuffer(64);
+        buffer.appendCode128(data, 60, 2);
+        byte[] bytes = buffer.array();
+        int n = bytes[HEADER + 3] & 0xFF;
+        assertEquals(HEADER + 4 + n + 1, buffer.size());
+        return new String(bytes, HEADER + 4, n, Charset.forName("ISO-8859-1"));
+    }
+
+    @Test
+    public void braceIsEscapedInCode128Data() {
+        assertEquals("{BINV-2024-001", code128("INV-2024-001"));
+        assertEquals("{BORD{{7}", code128("ORD{7}"));
+        assertEquals("{B{{{{", code128("{{"));
+    }
+
+    @Test
+    public void code128LengthCountsEscapedBraces() {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 300; i++) data.append('{');
+        String encoded = code128(data.toString());
+        // 253 byte maks: 126 '{' (252 byte), '{' berikutnya tidak muat
+        assertEquals(2 + 252, encoded.length());
+
+        data.setLength(0);
+        for (int i = 0; i < 300; i++) data.append('A');
+        assertEquals(2 + 253, code128(data.toString()).length());
+    }
+
+    @Test
+    public void nonPrintableCharactersAreSkipped() {
+        assertEquals("{BAB", code128("Aé\nB"));
+        assertEquals(0, new EscPosBuffer(8).appendCode128("é", 60, 2).size());
+    }
+}
@@ -0,0 +1,111 @@
+package com.azzahra.sync;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.junit.Test;
+
+// Benchmark jalur cetak tanpa perangkat: parse JSON label -> render template -> encode teks
+// ke buffer ESC/POS, payload sama dengan PrintBenchmark. Jalan di CI lewat ./gradlew testDebugUnitTest.
+// Waktu hanya dicetak ke stdout (bandingkan antar build), tidak menggagalkan build: jam dinding di
+// mesin CI bersama tidak stabil. Yang di-assert hanya hasil: ukuran label & byte identik.
+public class LabelPipelineBenchmarkTest {
+    private static final int WARMUP_LABELS = 2000;
+    private static final int LABELS = 500;
+    private static final int ROUNDS = 5;
+    private static final int MAX_BYTES_PER_LABEL = 1024;
+
+    private static List<String> buildLabels(int count) {
+        List<String> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            out.add("{\"name\":\"Pembeli Benchmark " + i
+                    + "\",\"phone\":\"08123456" + String.format(Locale.US, "%04d", i)
+                    + "\",\"address\":\"Jl. Raya Cibeunying Kidul No. " + i
+                    + " RT 03/RW 07 Kel. Sukamaju Kec. Cibeunying Kidul Kota Bandung Jawa Barat 40121"
+                    + "\",\"items\":\"2x Gamis Syari Maroon (XL), 1x Khimar Instan Hitam, 3x Inner Ciput Rajut"
+                    + "\",\"courier\":\"J&T REG\",\"orderId\":\"BENCH" + i + "\"}");
+        }
+        return out;
+    }
+
+    // Sama dengan BluetoothPrinterManager.print() tanpa logo & transport
+    private static final class Pipeline {
+        final LabelTemplate template;
+        final PrinterTextEncoder encoder;
+        final EscPosBuffer buffer = new EscPosBuffer(2048);
+        final String cutLine = BulkPrintSession.SEPARATOR + "\n";
+
+        Pipeline(PrinterCodepage codepage, int columns) {
+            template = LabelTemplate.compile(LabelTemplate.DEFAULT_SOURCE, codepage, columns);
+            encoder = new PrinterTextEncoder(codepage);
+        }
+
+        int print(String json) throws JSONException {
+            LabelData label = LabelData.fromJson(json);
+            buffer.reset()
+                    .append(EscPosBuffer.RESET)
+                    .append(encoder.getCodepage().selectCommand())
+                    .append(EscPosBuffer.BOLD);
+            template.render(label, buffer, null);
+            encoder.encode(cutLine, buffer);
+            buffer.append(EscPosBuffer.FEED_3);
+            return buffer.size();
+        }
+    }
+
+    @Test
+    public void reportsLabelPipelineThroughput() throws JSONException {
+        List<String> labels = buildLabels(LABELS);
+        for (int columns : new int[]{LineBreaker.COLUMNS_58MM, LineBreaker.COLUMNS_80MM}) {
+            Pipeline pipeline = new Pipeline(PrinterCodepage.GBK, columns);
+            List<String> warmup = buildLabels(WARMUP_LABELS);
+            for (String json : warmup) pipeline.print(json);
+
+            long[] perLabel = new long[ROUNDS];
+            long totalBytes = 0;
+            int maxBytes = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                long start = System.nanoTime();
+                for (String json : labels) {
+                    int size = pipeline.print(json);
+                    totalBytes += size;
+                    maxBytes = Math.max(maxBytes, size);
+                }
+                perLabel[r] = (System.nanoTime() - start) / LABELS;
+            }
+            Arrays.sort(perLabel);
+            long p50Micros = TimeUnit.NANOSECONDS.toMicros(perLabel[ROUNDS / 2]);
+            System.out.println(String.format(Locale.US, "%dmm: %d us/label (median %d ronde), %.0f label/s, %d B/label",
+                    columns == LineBreaker.COLUMNS_58MM ? 58 : 80, p50Micros, ROUNDS,
+                    1e9 / perLabel[ROUNDS / 2], totalBytes / ((long) LABELS * ROUNDS)));
+
+            assertTrue("Label terlalu besar: " + maxBytes + " byte", maxBytes <= MAX_BYTES_PER_LABEL);
+        }
+    }
+
+    // Buffer dipakai ulang antar label: hasil label yang sama harus identik walau diselingi label lain
+    @Test
+    public void reusedBuffersProduceIdenticalBytes() throws JSONException {
+        List<String> labels = buildLabels(3);
+        Pipeline pipeline = new Pipeline(PrinterCodepage.GBK, LineBreaker.COLUMNS_58MM);
+        pipeline.print(labels.get(0));
+        byte[] first = Arrays.copyOf(pipeline.buffer.array(), pipeline.buffer.size());
+        pipeline.print(labels.get(1));
+        pipeline.print(labels.get(2));
+        pipeline.print(labels.get(0));
+        byte[] again = Arrays.copyOf(pipeline.buffer.array(), pipeline.buffer.size());
+        assertArrayEquals(first, again);
+
+        String text = new String(first, Charset.forName("ISO-8859-1"));
+        assertTrue(text.contains("Kepada : Pembeli Benchmark 0"));
+        assertTrue(text.contains("Order #BENCH0"));
+        assertTrue(text.contains(BulkPrintSession.SEPARATOR));
+    }
+}
@@ -0,0 +1,196 @@
+package com.azzahra.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+
+public class LineBreakerTest {
+
+    private static String wrap(int columns, String text, int startColumn, int indent) {
+        StringBuilder out = new StringBuilder();
+        new LineBreaker(columns).wrap(text, startColumn, indent, out);
+        return out.toString();
+    }
+
+    private static int width(String line) {
+        int w = 0;
+        for (int i = 0; i < line.length(); ) {
+            int cp = line.codePointAt(i);
+            w += LineBreaker.displayWidth(cp);
+            i += Character.charCount(cp);
+        }
+        return w;
+    }
+
+    private static void assertFits(int columns, int startColumn, String wrapped) {
+        String[] lines = wrapped.split("\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            int w = width(lines[i]) + (i == 0 ? startColumn : 0);
+            assertTrue("baris " + i + " lebar " + w + " > " + columns + ": '" + lines[i] + "'", w <= columns);
+        }
+    }
+
+    // wrapText lama di LabelTemplate (split(" ") + spasi di ujung baris), sebagai pembanding
+    private static String legacyWrap(String text, int limit, int indent) {
+        // Spasi di ujung baris tidak tercetak; LineBreaker memang tidak menulisnya
+        return legacyWrapRaw(text, limit, indent).replace(" \n", "\n").replaceAll(" +$", "");
+    }
+
+    // Persis kode lama, untuk benchmark
+    private static String legacyWrapRaw(String text, int limit, int indent) {
+        StringBuilder sb = new StringBuilder();
+        int count = 0;
+        for (String word : text.split(" ")) {
+            if (count + word.length() > limit) {
+                sb.append('\n');
+                for (int k = 0; k < indent; k++) sb.append(' ');
+                count = 0;
+            }
+            sb.append(word).append(' ');
+            count += word.length() + 1;
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void paperWidthColumns() {
+        assertEquals(LineBreaker.COLUMNS_58MM, LineBreaker.forPaperWidthDots(BluetoothPrinterManager.WIDTH_58MM_DOTS).getColumns());
+        assertEquals(LineBreaker.COLUMNS_80MM, LineBreaker.forPaperWidthDots(BluetoothPrinterManager.WIDTH_80MM_DOTS).getColumns());
+    }
+
+    @Test
+    public void wrapsAddressOn58mmWithHangingIndent() {
+        String address = "Jl. Melati Raya No. 12 RT 03 RW 05 Kel. Sukamaju Kec. Cibeunying Kota Bandung";
+        // "Alamat : " = 9 kolom, baris lanjutan sejajar isi
+        String wrapped = wrap(LineBreaker.COLUMNS_58MM, address, 9, 9);
+        assertEquals("Jl. Melati Raya No. 12\n"
+                + "         RT 03 RW 05 Kel.\n"
+                + "         Sukamaju Kec.\n"
+                + "         Cibeunying Kota Bandung", wrapped);
+        assertFits(LineBreaker.COLUMNS_58MM, 9, wrapped);
+    }
+
+    @Test
+    public void sameAddressUsesFewerLinesOn80mm() {
+        String address = "Jl. Melati Raya No. 12 RT 03 RW 05 Kel. Sukamaju Kec. Cibeunying Kota Bandung";
+        String wrapped = wrap(LineBreaker.COLUMNS_80MM, address, 9, 9);
+        // Baris pertama pas 48 kolom
+        assertEquals("Jl. Melati Raya No. 12 RT 03 RW 05 Kel.\n"
+                + "         Sukamaju Kec. Cibeunying Kota Bandung", wrapped);
+        assertFits(LineBreaker.COLUMNS_80MM, 9, wrapped);
+    }
+
+    @Test
+    public void wordLongerThanLineIsHardSplit() {
+        String resi = "JP1234567890123456789012345678901234567890";
+        for (int columns : new int[]{LineBreaker.COLUMNS_58MM, LineBreaker.COLUMNS_80MM}) {
+            String wrapped = wrap(columns, "Resi " + resi, 0, 0);
+            assertFits(columns, 0, wrapped);
+            assertEquals("Resi" + resi, wrapped.replace("\n", "").replace(" ", ""));
+        }
+        assertEquals("Resi\nJP123456789012345678901234567890\n1234567890", wrap(LineBreaker.COLUMNS_58MM, "Resi " + resi, 0, 0));
+    }
+
+    @Test
+    public void indentNotSmallerThanLineFallsBackToZero() {
+        String wrapped = wrap(8, "abcdefgh ijklmnop", 0, 8);
+        assertEquals("abcdefgh\nijklmnop", wrapped);
+    }
+
+    @Test
+    public void wideCharactersCountAsTwoColumns() {
+        // 20 huruf CJK = 40 kolom: 16 per baris di 58mm
+        String cjk = "北京市朝阳区建国路八十八号现代城五号楼一单元";
+        String wrapped = wrap(LineBreaker.COLUMNS_58MM, cjk, 0, 0);
+        assertFits(LineBreaker.COLUMNS_58MM, 0, wrapped);
+        assertEquals(cjk.substring(0, 16), wrapped.split("\n")[0]);
+        assertEquals(cjk, wrapped.replace("\n", ""));
+
+        // Emoji (surrogate pair) tidak terbelah
+        String emoji = "Terima kasih 🙏🙏🙏🙏🙏🙏🙏🙏🙏🙏🙏🙏🙏🙏🙏🙏🙏🙏";
+        String wrappedEmoji = wrap(LineBreaker.COLUMNS_58MM, emoji, 0, 0);
+        assertFits(LineBreaker.COLUMNS_58MM, 0, wrappedEmoji);
+        for (int i = 0; i < wrappedEmoji.length(); i++) {
+            char c = wrappedEmoji.charAt(i);
+            if (Character.isHighSurrogate(c)) assertTrue(Character.isLowSurrogate(wrappedEmoji.charAt(++i)));
+            else assertTrue(!Character.isLowSurrogate(c));
+        }
+    }
+
+    @Test
+    public void combiningMarksTakeNoColumn() {
+        // "é" sebagai e + U+0301: 32 huruf tetap muat satu baris 58mm
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < 32; i++) word.append("é");
+        assertEquals(word.toString(), wrap(LineBreaker.COLUMNS_58MM, word.toString(), 0, 0));
+        assertEquals(0, LineBreaker.displayWidth(0x0301));
+        assertEquals(2, LineBreaker.displayWidth('北'));
+        assertEquals(1, LineBreaker.displayWidth('é'));
+    }
+
+    @Test
+    public void blankLinesAndSpacesArePreserved() {
+        assertEquals("", wrap(LineBreaker.COLUMNS_58MM, "", 0, 0));
+        assertEquals("", wrap(LineBreaker.COLUMNS_58MM, "   ", 0, 0));
+        assertEquals("1x Gamis\n\n2x Khimar", wrap(LineBreaker.COLUMNS_58MM, "1x Gamis\n\n2x Khimar", 0, 0));
+        assertEquals("1x Gamis\n  \n  2x Khimar", wrap(LineBreaker.COLUMNS_58MM, "1x Gamis\n\n2x Khimar", 0, 2));
+        assertEquals("a b", wrap(LineBreaker.COLUMNS_58MM, "a    b\r", 0, 0));
+    }
+
+    // Untuk teks ASCII dengan kata <= lebar baris, hasilnya sama dengan wrapText lama
+    @Test
+    public void matchesLegacyWrapForPlainAsciiText() {
+        Random random = new Random(42);
+        for (int columns : new int[]{LineBreaker.COLUMNS_58MM, LineBreaker.COLUMNS_80MM}) {
+            for (int indent : new int[]{0, 9, 12}) {
+                for (int round = 0; round < 2000; round++) {
+                    StringBuilder text = new StringBuilder();
+                    int words = 1 + random.nextInt(20);
+                    for (int w = 0; w < words; w++) {
+                        if (w > 0) text.append(' ');
+                        int len = 1 + random.nextInt(Math.min(14, columns - indent));
+                        for (int k = 0; k < len; k++) text.append((char) ('a' + random.nextInt(26)));
+                    }
+                    String input = text.toString();
+                    assertEquals(input, legacyWrap(input, columns - indent, indent), wrap(columns, input, indent, indent));
+                }
+            }
+        }
+    }
+
+    // Pembanding kecepatan dengan wrapText lama: hanya dilaporkan, tidak menggagalkan build (waktu di CI tidak stabil)
+    @Test
+    public void benchmarkAgainstLegacyWrap() {
+        String[] addresses = {
+                "Jl. Melati Raya No. 12 RT 03 RW 05 Kel. Sukamaju Kec. Cibeunying Kota Bandung Jawa Barat 40121",
+                "Perum Griya Asri Blok C7 No. 21 Desa Sukamulya Kec. Cikupa Kab. Tangerang Banten",
+                "2x Gamis Syari Maroon (XL), 1x Khimar Instan Hitam, 3x Inner Ciput Rajut",
+        };
+        LineBreaker breaker = new LineBreaker(LineBreaker.COLUMNS_58MM);
+        StringBuilder out = new StringBuilder(256);
+        int iterations = 200000;
+        long sink = 0;
+        for (int round = 0; round < 2; round++) { // ronde pertama = pemanasan JIT
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                out.setLength(0);
+                breaker.wrap(addresses[i % addresses.length], 9, 9, out);
+                sink += out.length();
+            }
+            long breakerNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += legacyWrapRaw(addresses[i % addresses.length], LineBreaker.COLUMNS_58MM - 9, 9).length();
+            }
+            long legacyNanos = System.nanoTime() - start;
+            if (round == 1) {
+                System.out.println(String.format(Locale.US, "LineBreaker %d ns/alamat, wrapText lama %d ns/alamat (%d)",
+                        breakerNanos / iterations, legacyNanos / iterations, sink & 1));
+            }
+        }
+        assertTrue(sink > 0);
+    }
+}
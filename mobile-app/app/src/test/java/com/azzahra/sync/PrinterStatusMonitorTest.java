@@ -0,0 +1,39 @@
+package com.azzahra.sync;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import org.junit.Test;
+
+public class PrinterStatusMonitorTest {
+    private static final byte[] EOT_1 = {0x10, 0x04, 0x01};
+    private static final byte[] EOT_2 = {0x10, 0x04, 0x02};
+
+    // Balasan probe (DLE EOT 1) yang datang setelah timeout tidak boleh dibaca sebagai balasan query berikutnya
+    @Test
+    public void lateProbeReplyIsMatchedToProbeQuery() throws Exception {
+        PipedOutputStream printer = new PipedOutputStream();
+        PrinterStatusMonitor monitor = new PrinterStatusMonitor(new PipedInputStream(printer), s -> {});
+        monitor.start();
+
+        assertTrue(monitor.beginQueries(EOT_1));
+        assertFalse("tanpa balasan = timeout", monitor.awaitReplies(50));
+
+        // Query DLE EOT 2 dikirim, lalu balasan probe yang telat datang: 0x16 (online, bit 2 menyala)
+        assertTrue(monitor.beginQueries(EOT_2));
+        printer.write(0x16);
+        printer.flush();
+        // Balasan DLE EOT 2 yang sebenarnya: tutup tertutup, tanpa error
+        printer.write(0x12);
+        printer.flush();
+        assertTrue(monitor.awaitReplies(2000));
+
+        PrinterStatus status = monitor.getStatus();
+        assertFalse("0x16 milik DLE EOT 1, bukan tutup terbuka", status.coverOpen);
+        assertTrue(status.isPrintable());
+        monitor.stop();
+        printer.close();
+    }
+}